@@ -0,0 +1,109 @@
+package com.oblig.obj_oblig_2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// A generated grid map filled with a fixed number of cars, shared by all the benchmarks.
+// The world is rebuilt for every iteration, because cars drive off the map while being measured.
+@State(Scope.Benchmark)
+public class BenchmarkWorld {
+    // Distance between neighbouring intersections
+    static final double BLOCK_SIZE = 300;
+    // Distance between cars placed in the same lane, a bit over the safe following distance
+    static final double CAR_SPACING = 45;
+
+    @Param({"50", "500", "5000", "50000"})
+    public int cars;
+
+    SimulationEngine engine;
+    Simulation simulation;
+    VehicleStore vehicles;
+    CollisionResolver collisionResolver;
+
+    private Path mapFile;
+    private PrintStream out;
+
+    @Setup(Level.Trial)
+    public void writeMap() throws IOException {
+        // The cars log every decision, that would end up in the measurements
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        mapFile = Files.createTempFile("benchmark-map", ".json");
+        MapGenerator generator = new MapGenerator(gridSize(cars), gridSize(cars), BLOCK_SIZE);
+        generator.setMaxCars(cars);
+        generator.write(mapFile.toFile());
+        ConfigLoader.initialize(mapFile.toString());
+    }
+
+    @Setup(Level.Iteration)
+    public void buildWorld() {
+        // The generator leaves one block of margin after the last road
+        double extent = (gridSize(cars) + 1) * BLOCK_SIZE;
+        engine = new SimulationEngine(extent, extent);
+        engine.setSeed(42);
+        engine.setAutoSpawningEnabled(false);
+        simulation = engine.getSimulation();
+        vehicles = simulation.getVehicles();
+        collisionResolver = new CollisionResolver(ConfigLoader.getInstance().getCarSize());
+
+        // Drop any cars from the configured initial setup, then fill every lane front to back
+        while (!simulation.getCars().isEmpty()) {
+            engine.removeLastCar();
+        }
+        fillLanes(extent);
+
+        // One tick publishes the snapshot and builds the spatial hash the cars read
+        engine.tick();
+    }
+
+    @TearDown(Level.Iteration)
+    public void shutdownEngine() {
+        engine.shutdown();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteMap() throws IOException {
+        System.setOut(out);
+        Files.deleteIfExists(mapFile);
+    }
+
+    private void fillLanes(double extent) {
+        List<Road> roads = simulation.getRoads();
+        double speed = ConfigLoader.getInstance().getCarSpeed();
+        int placed = 0;
+        for (double distance = CAR_SPACING; placed < cars && distance < extent; distance += CAR_SPACING) {
+            for (Road road : roads) {
+                CarDirection[] directions = road.isHorizontal()
+                        ? new CarDirection[] {CarDirection.EAST, CarDirection.WEST}
+                        : new CarDirection[] {CarDirection.NORTH, CarDirection.SOUTH};
+                for (CarDirection direction : directions) {
+                    if (placed == cars) return;
+                    engine.placeCar(road, direction, distance, speed);
+                    placed++;
+                }
+            }
+        }
+    }
+
+    // Intersections per side, enough lane length for the cars at CAR_SPACING
+    static int gridSize(int cars) {
+        // n roads each way, two lanes per road, (n + 1) blocks of lane length each
+        int size = 1;
+        while (4.0 * size * (size + 1) * BLOCK_SIZE / CAR_SPACING < cars) {
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,40 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Per-car work of one tick: the whole move, and the neighbour check on its own
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarBenchmark {
+
+    // Car.step is the public wrapper around move()
+    @Benchmark
+    public void moveAllCars(BenchmarkWorld world) {
+        double dt = world.engine.getTickSeconds();
+        List<Car> cars = world.simulation.getCars();
+        for (int i = 0; i < cars.size(); i++) {
+            cars.get(i).step(dt);
+        }
+    }
+
+    @Benchmark
+    public void shouldStopForNearbyVehicle(BenchmarkWorld world, Blackhole blackhole) {
+        List<Car> cars = world.simulation.getCars();
+        for (int i = 0; i < cars.size(); i++) {
+            blackhole.consume(cars.get(i).shouldStopForNearbyVehicle());
+        }
+    }
+}
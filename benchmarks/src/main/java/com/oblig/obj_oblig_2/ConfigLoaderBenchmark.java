@@ -0,0 +1,34 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// The config getters the cars call while driving, once per car as in a tick
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigLoaderBenchmark {
+
+    @Benchmark
+    public void getters(BenchmarkWorld world, Blackhole blackhole) {
+        for (int i = 0; i < world.cars; i++) {
+            ConfigLoader config = ConfigLoader.getInstance();
+            blackhole.consume(config.getCarSize());
+            blackhole.consume(config.getMinCarDistance());
+            blackhole.consume(config.getRoadWidth());
+            blackhole.consume(config.getIntersectionRadius());
+            blackhole.consume(config.getTurningSpeed());
+            blackhole.consume(config.getTrafficLightDetectionRadius());
+        }
+    }
+}
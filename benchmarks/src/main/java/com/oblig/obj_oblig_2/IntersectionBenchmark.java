@@ -0,0 +1,29 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Traffic light update for every intersection of the map, the map grows with the car count
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionBenchmark {
+
+    @Benchmark
+    public void updateTrafficLights(BenchmarkWorld world) {
+        List<Intersection> intersections = world.simulation.getIntersections();
+        for (int i = 0; i < intersections.size(); i++) {
+            intersections.get(i).updateTrafficLights();
+        }
+    }
+}
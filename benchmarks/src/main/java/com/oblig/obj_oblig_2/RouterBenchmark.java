@@ -0,0 +1,75 @@
+package com.oblig.obj_oblig_2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// One route query between random map edge lanes, the way trips are planned, on a square grid
+// map of the given size. The hierarchy is built once in the setup, not measured
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouterBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"20", "50"})
+    public int gridSize;
+
+    private Router astar;
+    private Router contractionHierarchy;
+    private final int[] origins = new int[QUERIES];
+    private final int[] destinations = new int[QUERIES];
+    private int next;
+
+    @Setup
+    public void buildRouters() throws IOException {
+        Path mapFile = Files.createTempFile("router-map", ".json");
+        try {
+            new MapGenerator(gridSize, gridSize, BenchmarkWorld.BLOCK_SIZE).write(mapFile.toFile());
+            ConfigLoader.initialize(mapFile.toString());
+        } finally {
+            Files.deleteIfExists(mapFile);
+        }
+        RoadNetwork network = new RoadNetwork(ConfigLoader.getInstance().getConfig().map());
+        astar = new AStarRouter(network);
+        contractionHierarchy = ContractionHierarchyRouter.of(network);
+
+        Random random = new Random(42);
+        for (int i = 0; i < QUERIES; i++) {
+            origins[i] = network.firstLink(random.nextInt(network.laneCount()));
+            destinations[i] = network.lastLink(random.nextInt(network.laneCount()));
+        }
+    }
+
+    @Benchmark
+    public Route astar() {
+        return route(astar);
+    }
+
+    @Benchmark
+    public Route contractionHierarchy() {
+        return route(contractionHierarchy);
+    }
+
+    private Route route(Router router) {
+        int query = next++ & (QUERIES - 1);
+        return router.route(origins[query], destinations[query]);
+    }
+}
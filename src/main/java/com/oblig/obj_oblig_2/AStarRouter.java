@@ -0,0 +1,109 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.Arrays;
+
+// A* over the links of a road network. A search state is a link, so the no U-turn rule is just
+// a missing successor. The cost of a link is the distance between its intersections and the
+// heuristic is the straight-line distance on to the destination, which never overestimates.
+// Closed links are left out of the search.
+// The per-link arrays are allocated once and reused, a generation number tells which entries
+// belong to the current search. Not thread-safe on its own, route() is synchronized.
+public class AStarRouter implements Router {
+    private static final CarDirection[] DIRECTIONS = CarDirection.values();
+
+    private final RoadNetwork network;
+    private final double[] cost;
+    private final int[] parent;
+    private final int[] seen;
+    private final int[] closed;
+    private int generation;
+    private final LinkHeap open;
+
+    public AStarRouter(RoadNetwork network) {
+        this.network = network;
+        int links = network.linkCount();
+        cost = new double[links];
+        parent = new int[links];
+        seen = new int[links];
+        closed = new int[links];
+        open = new LinkHeap(64);
+    }
+
+    @Override
+    public synchronized Route route(int originLink, int destinationLink) {
+        if (originLink == destinationLink) {
+            return new Route(new int[] {originLink}, 0);
+        }
+        nextGeneration();
+        int target = network.fromIntersection(destinationLink);
+        if (target == RoadNetwork.NONE) {
+            // Links coming in from the map edge can only be reached by starting on them
+            return null;
+        }
+        double targetX = network.intersectionX(target);
+        double targetY = network.intersectionY(target);
+        double destinationLength = network.linkLength(destinationLink);
+
+        open.clear();
+        visit(originLink, 0, RoadNetwork.NONE);
+        open.push(originLink, 0);
+
+        while (!open.isEmpty()) {
+            int link = open.pop();
+            if (closed[link] == generation) continue;
+            closed[link] = generation;
+            if (link == destinationLink) {
+                return buildRoute(link);
+            }
+
+            for (CarDirection direction : DIRECTIONS) {
+                int next = network.nextLink(link, direction);
+                if (next == RoadNetwork.NONE || closed[next] == generation || network.isClosed(next)) continue;
+                // Leaving the map anywhere but at the destination goes nowhere
+                if (next != destinationLink && network.nextIntersection(next) == RoadNetwork.NONE) continue;
+                double nextCost = cost[link] + network.linkLength(next);
+                if (seen[next] == generation && cost[next] <= nextCost) continue;
+                visit(next, nextCost, link);
+                open.push(next, nextCost + estimate(next, destinationLink, targetX, targetY, destinationLength));
+            }
+        }
+        return null;
+    }
+
+    // Straight-line distance from the end of a link to the start of the destination,
+    // plus the destination link itself
+    private double estimate(int link, int destinationLink, double targetX, double targetY, double destinationLength) {
+        if (link == destinationLink) return 0;
+        int end = network.nextIntersection(link);
+        if (end == RoadNetwork.NONE) return 0;
+        return Math.hypot(network.intersectionX(end) - targetX, network.intersectionY(end) - targetY) + destinationLength;
+    }
+
+    private void visit(int link, double linkCost, int from) {
+        seen[link] = generation;
+        cost[link] = linkCost;
+        parent[link] = from;
+    }
+
+    private Route buildRoute(int destinationLink) {
+        int length = 0;
+        for (int link = destinationLink; link != RoadNetwork.NONE; link = parent[link]) {
+            length++;
+        }
+        int[] links = new int[length];
+        for (int link = destinationLink, i = length - 1; link != RoadNetwork.NONE; link = parent[link], i--) {
+            links[i] = link;
+        }
+        return new Route(links, cost[destinationLink]);
+    }
+
+    private void nextGeneration() {
+        generation++;
+        if (generation == 0) {
+            // Wrapped around, old marks could look current again
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+    }
+}
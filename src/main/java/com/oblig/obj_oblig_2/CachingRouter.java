@@ -0,0 +1,149 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Remembers the routes of another router in a bounded least-recently-used cache keyed by
+// (origin link, destination link), so repeated trips between the same links search only once.
+// Also counts hits and misses and times the searches it could not avoid.
+// When links close or reopen only the routes they affect are dropped, see invalidateRoutesThrough
+// and invalidateRoutesSince; the rest stay cached.
+public class CachingRouter implements Router {
+    private final Router router;
+    private final int capacity;
+    private final LinkedHashMap<Long, Cached> routes;
+    // Stamps the closure version on every route searched, null when links never close
+    private final RoadNetwork network;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long searchNanos;
+    private long invalidations;
+
+    public CachingRouter(Router router, int capacity) {
+        this(router, capacity, null);
+    }
+
+    public CachingRouter(Router router, int capacity, RoadNetwork network) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Route cache needs room for at least one route: " + capacity);
+        }
+        this.router = router;
+        this.capacity = capacity;
+        this.network = network;
+        // Access order, so the eldest entry is the least recently used one
+        this.routes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+                if (size() > CachingRouter.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Route route(int originLink, int destinationLink) {
+        Long key = key(originLink, destinationLink);
+        Cached cached = routes.get(key);
+        if (cached != null) {
+            // Also remembers that there is no route
+            hits++;
+            return cached.route;
+        }
+        misses++;
+        int version = network != null ? network.closureVersion() : 0;
+        long start = System.nanoTime();
+        Route route = router.route(originLink, destinationLink);
+        searchNanos += System.nanoTime() - start;
+        routes.put(key, new Cached(route, version));
+        return route;
+    }
+
+    // Drops the routes that drive over a link, after it closed. Returns how many
+    public synchronized int invalidateRoutesThrough(int link) {
+        int removed = 0;
+        for (Iterator<Cached> it = routes.values().iterator(); it.hasNext(); ) {
+            Route route = it.next().route;
+            if (route != null && route.contains(link)) {
+                it.remove();
+                removed++;
+            }
+        }
+        invalidations += removed;
+        return removed;
+    }
+
+    // Drops the routes searched at or after a closure version, including the trips that had
+    // no route. After a link reopens these are the ones that may have gone around it
+    public synchronized int invalidateRoutesSince(int closureVersion) {
+        int removed = 0;
+        for (Iterator<Cached> it = routes.values().iterator(); it.hasNext(); ) {
+            if (it.next().closureVersion >= closureVersion) {
+                it.remove();
+                removed++;
+            }
+        }
+        invalidations += removed;
+        return removed;
+    }
+
+    private static Long key(int originLink, int destinationLink) {
+        return ((long) originLink << 32) | (destinationLink & 0xffffffffL);
+    }
+
+    public Router getRouter() {
+        return router;
+    }
+
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    // Routes dropped because links closed or reopened
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    // Share of lookups answered from the cache, 0 before the first lookup
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups > 0 ? (double) hits / lookups : 0;
+    }
+
+    // Mean time the wrapped router took per search, in microseconds
+    public synchronized double getMeanSearchMicros() {
+        return misses > 0 ? searchNanos / 1000.0 / misses : 0;
+    }
+
+    // A route, or null for no route, and the closure version it was searched at
+    private static final class Cached {
+        final Route route;
+        final int closureVersion;
+
+        Cached(Route route, int closureVersion) {
+            this.route = route;
+            this.closureVersion = closureVersion;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.oblig.obj_oblig_2;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.PriorityQueue;
@@ -9,83 +10,98 @@ import java.util.Map;
 import java.util.Comparator;
 import javafx.scene.paint.Color;
 
-public class Car extends Thread {
+// A single car. It has no thread of its own, the engine calls step() once per tick
+public class Car {
     // Add this field to store the car's color
     private Color color;
     
-    private Position position;
-    private double speed;
-    private CarDirection direction;
+    // Primitive state (position, speed, direction, lane, flags) lives in a VehicleStore slot
+    VehicleStore store;
+    int slot;
+    // Lane queue the car is in while driving on a road, maintained by Lane
+    Lane lane;
+    Car leader;
+    Car follower;
     private Road currentRoad;
     private TrafficLight trafficLight;
     private List<Intersection> intersections;
     private int detectionRadius;
-    private int laneOffset;
-    private List<Car> nearbyVehicles;
-    private double minSafeDistance = ConfigLoader.getInstance().getMinCarDistance();
+    private double minSafeDistance;
     private int size;
     private Intersection currentIntersection;
-    private boolean hasPassedTrafficLight;
-    private boolean isInCooldown;
+    // Link of the road network the car is driving on, NONE when there is no network
+    private int link = RoadNetwork.NONE;
+    // Trip the car follows, null to choose turns at random, and how far along it the car is
+    private Route route;
+    private int routeStep;
+    // Closure version of the road network the route was last checked against
+    private int routeVersion;
     private long cooldownEndTime;
     private static final long COOLDOWN_DURATION = 2000;
     private Simulation simulation;
-    private boolean turningInProgress = false;
     private CarDirection targetDirection = null;
-    private final Object positionLock = new Object();
-    private Position lastRecordedPosition;
+    // Where the car was when it last moved a little, for the stuck check, and when that was
+    private double lastRecordedX;
+    private double lastRecordedY;
+    private boolean movementRecorded;
     private long lastMovementTime;
     private static final long STUCK_THRESHOLD_MS = 5000; // 5 seconds
     
     // Add Random object for all methods that need randomness
+    // The engine reseeds it when the car is spawned so runs can be repeated
     private final Random random = new Random();
     
-    // Path planning for turning
-    private List<Position> turningPath;
-    private int currentPathIndex;
-    private boolean isFollowingPath;
-
-    // Add a new field to store the original speed
-    private double originalSpeed;
+    // Path through the current intersection, shared with other cars, and how far along it this car is
+    private TurningPath turningPath;
+    private double pathDistance;
+    // Intersections that counted the car as waiting, told to forget it when it retires
+    private Intersection[] countedAt = new Intersection[4];
+    private int countedAtCount;
 
     // Add a variable to track when the car entered an intersection
     private long intersectionEntryTime;
     private static final long MAX_INTERSECTION_TIME = 5000; // 5 seconds max in intersection
 
+    private static final CarDirection[] DIRECTIONS = CarDirection.values();
+    // The two turns possible from each direction, in the order the random pick uses
+    private static final CarDirection[][] TURNS = {
+            {CarDirection.EAST, CarDirection.WEST},   // NORTH
+            {CarDirection.EAST, CarDirection.WEST},   // SOUTH
+            {CarDirection.NORTH, CarDirection.SOUTH}, // EAST
+            {CarDirection.NORTH, CarDirection.SOUTH}, // WEST
+    };
+
+    // Config of the map the car was created on, read once instead of per lookup
+    private final SimConfig config;
+
+    // speed is measured in pixels per 100ms step, this scales it to the length of the current tick
+    private double stepScale = 1.0;
+
     public Car() {
-        this.position = new Position(0, 0);
-        this.speed = 0;
-        this.direction = CarDirection.NORTH;
-        this.detectionRadius = ConfigLoader.getInstance().getTrafficLightDetectionRadius();
-        this.intersections = new ArrayList<>();
-        this.laneOffset = calculateLaneOffset();
-        this.nearbyVehicles = new ArrayList<>();
-        this.size = ConfigLoader.getInstance().getCarSize();
-        this.minSafeDistance = ConfigLoader.getInstance().getMinCarDistance();
-        this.currentIntersection = null;
-        this.turningPath = new ArrayList<>();
-        this.currentPathIndex = 0;
-        this.isFollowingPath = false;
-        this.color = generateRandomColor();
+        this(new Position(0, 0), 0, CarDirection.NORTH, null);
     }
 
     // Fix the constructor to initialize originalSpeed
     public Car(Position position, double speed, CarDirection direction, TrafficLight trafficLight) {
-        this.position = position;
-        this.speed = speed;
-        this.originalSpeed = speed; // Add this line to initialize originalSpeed
-        this.direction = direction;
+        // Start in a private one-slot store, Simulation.addCar moves the car into the shared one
+        this(new VehicleStore(1), position.getX(), position.getY(), speed, direction);
         this.trafficLight = trafficLight;
-        this.detectionRadius = ConfigLoader.getInstance().getTrafficLightDetectionRadius();
+    }
+
+    // Start in a new slot of the given store, VehiclePool makes its new cars in its own store
+    // instead of allocating a one-slot store for each
+    Car(VehicleStore store, double x, double y, double speed, CarDirection direction) {
+        store.add(this);
+        this.config = ConfigLoader.getInstance().getConfig();
+        setX(x);
+        setY(y);
+        setSpeed(speed);
+        setOriginalSpeed(speed); // Add this line to initialize originalSpeed
+        setDirection(direction);
+        this.detectionRadius = config.trafficLight().detectionRadius();
         this.intersections = new ArrayList<>();
-        this.laneOffset = calculateLaneOffset();
-        this.nearbyVehicles = new ArrayList<>();
-        this.size = ConfigLoader.getInstance().getCarSize();
-        this.minSafeDistance = ConfigLoader.getInstance().getMinCarDistance();
-        this.currentIntersection = null;
-        this.turningPath = new ArrayList<>();
-        this.currentPathIndex = 0;
-        this.isFollowingPath = false;
+        this.size = config.car().size();
+        this.minSafeDistance = config.car().minCarDistance();
         this.color = generateRandomColor();
     }
 
@@ -112,21 +128,167 @@ public class Car extends Thread {
 
     // Fix the calculateLaneOffset method to be consistent
     private int calculateLaneOffset() {
-        int roadWidth = ConfigLoader.getInstance().getRoadWidth();
-        int laneWidth = roadWidth / 2;
+        return calculateLaneOffset(direction());
+    }
 
-        switch (direction) {
-            // Right-side driving system
-            case NORTH: return laneWidth/2;    // RIGHT side of vertical road (positive X offset)
-            case SOUTH: return -laneWidth/2;   // LEFT side of vertical road (negative X offset)
-            case EAST: return laneWidth/2;     // BOTTOM side of horizontal road (positive Y offset)
-            case WEST: return -laneWidth/2;    // TOP side of horizontal road (negative Y offset)
-            default: return 0;
+    // Accessors for the state kept in the vehicle store
+    public double getX() {
+        return store.x[slot];
+    }
+
+    public double getY() {
+        return store.y[slot];
+    }
+
+    private void setX(double x) {
+        store.x[slot] = x;
+    }
+
+    private void setY(double y) {
+        store.y[slot] = y;
+    }
+
+    private double speed() {
+        return store.speed[slot];
+    }
+
+    private double originalSpeed() {
+        return store.originalSpeed[slot];
+    }
+
+    // Speed the car returns to after slowing down
+    void setOriginalSpeed(double originalSpeed) {
+        store.originalSpeed[slot] = originalSpeed;
+    }
+
+    private CarDirection direction() {
+        return DIRECTIONS[store.direction[slot]];
+    }
+
+    private int laneOffset() {
+        return store.lane[slot];
+    }
+
+    private boolean hasFlag(int flag) {
+        return (store.flags[slot] & flag) != 0;
+    }
+
+    private void setFlag(int flag, boolean value) {
+        if (value) {
+            store.flags[slot] |= flag;
+        } else {
+            store.flags[slot] &= ~flag;
         }
     }
 
+    private void setCurrentIntersection(Intersection intersection) {
+        this.currentIntersection = intersection;
+        setFlag(VehicleStore.FLAG_IN_INTERSECTION, intersection != null);
+        updateLane();
+    }
+
+    // A car is queued in the lane of its road and direction, except while it is inside an intersection
+    // While the simulation is collecting tick intents the lane change waits until the commit phase
+    private void updateLane() {
+        Lane wanted = currentIntersection == null && currentRoad != null ? currentRoad.getLane(direction()) : null;
+        if (simulation != null && simulation.getTickIntents().isOpen() && store == simulation.getVehicles()) {
+            simulation.getTickIntents().changeLane(slot, wanted);
+            return;
+        }
+        moveToLane(wanted);
+    }
+
+    void moveToLane(Lane wanted) {
+        if (wanted == lane) return;
+        if (lane != null) {
+            lane.leave(this);
+        }
+        if (wanted != null) {
+            wanted.enter(this);
+        }
+    }
+
+    // Simulation time in milliseconds, wall-clock time for a car outside any simulation
+    private long now() {
+        return simulation != null ? simulation.getClock().millis() : System.currentTimeMillis();
+    }
+
+    // Seed the car's random numbers, for repeatable runs
+    void seedRandom(long seed) {
+        random.setSeed(seed);
+    }
+
+    // Called by an intersection that just counted the car as waiting
+    void countedAt(Intersection intersection) {
+        for (int i = 0; i < countedAtCount; i++) {
+            if (countedAt[i] == intersection) return;
+        }
+        if (countedAtCount == countedAt.length) {
+            countedAt = Arrays.copyOf(countedAt, countedAtCount * 2);
+        }
+        countedAt[countedAtCount++] = intersection;
+    }
+
+    // Taken out of the waiting counts of the intersections, when the car retires
+    void forgetWaiting() {
+        for (int i = 0; i < countedAtCount; i++) {
+            countedAt[i].forgetCar(this);
+            countedAt[i] = null;
+        }
+        countedAtCount = 0;
+    }
+
+    // Drop what a retired car still points at: its road, intersection, light, trip and turning path.
+    // The car is already out of the vehicle store and its lane
+    void reclaim() {
+        leader = null;
+        follower = null;
+        currentRoad = null;
+        currentIntersection = null;
+        trafficLight = null;
+        targetDirection = null;
+        route = null;
+        turningPath = null;
+    }
+
+    // Make a retired car new again, for VehiclePool: it starts over at (x, y) with
+    // no road, trip or timers, keeping its store slot, Random and color
+    void reset(double x, double y, double speed, CarDirection direction) {
+        link = RoadNetwork.NONE;
+        routeStep = 0;
+        routeVersion = 0;
+        cooldownEndTime = 0;
+        movementRecorded = false;
+        lastMovementTime = 0;
+        pathDistance = 0;
+        intersectionEntryTime = 0;
+        stepScale = 1.0;
+        store.flags[slot] = 0;
+        setX(x);
+        setY(y);
+        setSpeed(speed);
+        setOriginalSpeed(speed);
+        setDirection(direction);
+    }
+
+    // Called when the car is taken out of the simulation
+    void leaveLane() {
+        if (lane != null) {
+            lane.leave(this);
+        }
+    }
+
+    public Car getLeader() {
+        return leader;
+    }
+
+    public Car getFollower() {
+        return follower;
+    }
+
+    // Copy of the position, the live values are in the vehicle store
     public Position getPosition() {
-        return position;
+        return new Position(getX(), getY());
     }
 
     public void setIntersections(List<Intersection> intersections) {
@@ -135,19 +297,134 @@ public class Car extends Thread {
 
     public void setCurrentRoad(Road road) {
         this.currentRoad = road;
+        updateLane();
+        locateLink();
     }
 
     public void setDirection(CarDirection direction) {
-        this.direction = direction;
-        this.laneOffset = calculateLaneOffset();
+        store.direction[slot] = direction.ordinal();
+        store.lane[slot] = calculateLaneOffset();
+        updateLane();
+        locateLink();
     }
 
-    public CarDirection getDirection() {
-        return direction;
+    // Give the car a trip to follow, null to go back to random turns
+    void setRoute(Route route) {
+        this.route = route;
+        this.routeStep = 0;
+        RoadNetwork network = network();
+        this.routeVersion = network != null ? network.closureVersion() : 0;
+    }
+
+    // Link of the road network the car is on, RoadNetwork.NONE without a network
+    int getLink() {
+        return link;
+    }
+
+    public Route getRoute() {
+        return route;
+    }
+
+    // Direction the route leaves the current intersection in, null without a route
+    // or when the car got off its route
+    private CarDirection routedDirection() {
+        RoadNetwork network = network();
+        if (route == null || network == null || currentIntersection == null) return null;
+        if (routeVersion != network.closureVersion()) {
+            repairRoute(network);
+            if (route == null) return null;
+        }
+        // The link the route takes out of this intersection, usually the one after the current step
+        int step = -1;
+        for (int i = routeStep; i < route.size(); i++) {
+            if (network.fromIntersection(route.link(i)) == currentIntersection.getIndex()) {
+                step = i;
+                break;
+            }
+        }
+        if (step < 0) {
+            route = null;
+            return null;
+        }
+        routeStep = step;
+        return network.directionOfLink(route.link(step));
+    }
+
+    // Links closed or reopened since the route was checked. If one ahead is closed now,
+    // plan again from this intersection to the same destination
+    private void repairRoute(RoadNetwork network) {
+        routeVersion = network.closureVersion();
+        // The link at routeStep is the one the car is on, it only has to get off it
+        for (int i = routeStep + 1; i < route.size(); i++) {
+            if (network.isClosed(route.link(i))) {
+                Router router = simulation.getRouter();
+                int arriving = network.entryLink(currentIntersection.getIndex(), direction());
+                route = router != null && arriving != RoadNetwork.NONE ? router.route(arriving, route.destination()) : null;
+                routeStep = 0;
+                simulation.routeRepaired();
+                return;
+            }
+        }
+    }
+
+    private RoadNetwork network() {
+        return simulation != null ? simulation.getRoadNetwork() : null;
+    }
+
+    // A random turn into a closed link goes another way if there is an open one
+    private CarDirection avoidClosedLink(CarDirection choice) {
+        RoadNetwork network = network();
+        if (network == null || network.closedLinkCount() == 0 || currentIntersection.getIndex() < 0) return choice;
+        int intersection = currentIntersection.getIndex();
+        if (!isClosedExit(network, intersection, choice)) return choice;
+        if (!isClosedExit(network, intersection, direction())) return direction();
+        for (CarDirection turn : TURNS[direction().ordinal()]) {
+            if (!isClosedExit(network, intersection, turn)) return turn;
+        }
+        return choice;
+    }
+
+    private static boolean isClosedExit(RoadNetwork network, int intersection, CarDirection direction) {
+        int exit = network.exitLink(intersection, direction);
+        return exit != RoadNetwork.NONE && network.isClosed(exit);
+    }
+
+    // Find the link the car is on after it changed road or direction.
+    // Leaving an intersection that is a lookup, only a car put on a road from nowhere needs a search
+    private void locateLink() {
+        RoadNetwork network = network();
+        if (network == null || currentRoad == null || currentRoad.getIndex() < 0) {
+            link = RoadNetwork.NONE;
+        } else if (currentIntersection != null && currentIntersection.getIndex() >= 0) {
+            link = network.exitLink(currentIntersection.getIndex(), direction());
+        } else {
+            link = network.linkAt(currentRoad.getIndex(), direction(), getX(), getY());
+        }
+    }
+
+    // The next intersection on the car's link. Moves on to the following link when the car
+    // went through an intersection without entering it, e.g. after being pushed out of its lane
+    private int upcomingIntersection(RoadNetwork network) {
+        int next = network.nextIntersection(link);
+        while (next != RoadNetwork.NONE && hasPassed(network.intersectionX(next), network.intersectionY(next))) {
+            link = network.exitLink(next, direction());
+            next = network.nextIntersection(link);
+        }
+        return next;
     }
 
-    public void setNearbyVehicles(List<Car> vehicles) {
-        this.nearbyVehicles = vehicles;
+    // Past an intersection by more than the distance isInIntersection counts as inside it
+    private boolean hasPassed(double intersectionX, double intersectionY) {
+        switch (direction()) {
+            case NORTH: return getY() < intersectionY - 30;
+            case SOUTH: return getY() > intersectionY + 30;
+            case EAST: return getX() > intersectionX + 30;
+            default: return getX() < intersectionX - 30; // WEST
+        }
+    }
+
+    public CarDirection getDirection() {
+        return direction();
     }
 
     public int getSize() {
@@ -158,116 +435,108 @@ public class Car extends Thread {
         return currentRoad;
     }
 
-    @Override
-    public void run() {
-        while(!Thread.interrupted()) {
-            move();
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
+    // Advance the car by dt seconds
+    public void step(double dt) {
+        stepScale = dt / SimulationEngine.DEFAULT_TICK_SECONDS;
+        move();
     }
 
-    public void move() {
-        if (lastRecordedPosition == null) {
-            lastRecordedPosition = new Position(position.getX(), position.getY());
-            lastMovementTime = System.currentTimeMillis();
+    private void move() {
+        if (!movementRecorded) {
+            recordMovement();
         }
-        synchronized(positionLock) {
-            // Check for collisions first, but use new behavior
-            if (shouldStopForNearbyVehicle()) {
-                // Add small random movement to try to resolve deadlocks
-                if (random.nextInt(100) < 5) { // 5% chance to jiggle
-                    double jiggle = 0.2;
-                    position.setX(position.getX() + (random.nextDouble() * jiggle * 2) - jiggle);
-                    position.setY(position.getY() + (random.nextDouble() * jiggle * 2) - jiggle);
-                }
-                return;
+        // Check for collisions first, but use new behavior
+        if (shouldStopForNearbyVehicle()) {
+            // Add small random movement to try to resolve deadlocks
+            if (random.nextInt(100) < 5) { // 5% chance to jiggle
+                double jiggle = 0.2;
+                setX(getX() + (random.nextDouble() * jiggle * 2) - jiggle);
+                setY(getY() + (random.nextDouble() * jiggle * 2) - jiggle);
             }
+            return;
+        }
 
-            // Handle intersection logic - completely separate from normal movement
-            if (currentIntersection != null) {
-                // Add this at the beginning of handleIntersectionMovement
-                // Check for too long in intersection
-                if (System.currentTimeMillis() - intersectionEntryTime > 5000) {
-                    System.out.println("Car stuck in intersection for too long - forcing emergency exit");
-                    forceExitIntersection();
-                    return;
-                }
-                
-                handleIntersectionMovement();
-                return; // Don't proceed with normal road logic
+        // Handle intersection logic - completely separate from normal movement
+        if (currentIntersection != null) {
+            // Add this at the beginning of handleIntersectionMovement
+            // Check for too long in intersection
+            if (now() - intersectionEntryTime > 5000) {
+                forceExitIntersection();
+                return;
             }
+            
+            handleIntersectionMovement();
+            return; // Don't proceed with normal road logic
+        }
 
-            // Normal road handling (outside of intersections)
-            if (isInCooldown) {
-                if (System.currentTimeMillis() < cooldownEndTime) {
-                    moveInDirection();
-                    adjustPositionForLane(); // Add this line to maintain lane positioning
-                    return;
-                } else {
-                    isInCooldown = false;
-                    // Immediately restore speed when cooldown ends
-                    speed = originalSpeed;
-                }
+        // Normal road handling (outside of intersections)
+        if (hasFlag(VehicleStore.FLAG_IN_COOLDOWN)) {
+            if (now() < cooldownEndTime) {
+                moveInDirection();
+                adjustPositionForLane(); // Add this line to maintain lane positioning
+                return;
+            } else {
+                setFlag(VehicleStore.FLAG_IN_COOLDOWN, false);
+                // Immediately restore speed when cooldown ends
+                setSpeed(originalSpeed());
             }
+        }
+
+        // Traffic light logic
+        if (!hasFlag(VehicleStore.FLAG_PASSED_LIGHT) && shouldStopForTrafficLight()) {
+            return;
+        }
 
-            // Traffic light logic
-            if (!hasPassedTrafficLight && shouldStopForTrafficLight()) {
+        if (trafficLight != null) {
+            if (checkCollision(trafficLight)) {
                 return;
             }
 
-            if (trafficLight != null) {
-                if (checkCollision(trafficLight)) {
-                    return;
-                }
-
-                if (hasCrossedTrafficLight()) {
-                    hasPassedTrafficLight = true;
-                }
+            if (hasCrossedTrafficLight()) {
+                setFlag(VehicleStore.FLAG_PASSED_LIGHT, true);
             }
+        }
 
-            // Check if entering an intersection
-            checkIntersectionEntry();
+        // Check if entering an intersection
+        checkIntersectionEntry();
 
-            // Normal movement on road
-            moveInDirection();
-            adjustPositionForLane(); // Add this line to maintain lane positioning
+        // Normal movement on road
+        moveInDirection();
+        adjustPositionForLane(); // Add this line to maintain lane positioning
 
-            // After normal movement, ensure we restore speed much more aggressively
-            if (speed < originalSpeed) {
-                // Always restore speed by 5% each frame (no random chance)
-                speed = Math.min(originalSpeed, speed * 1.05);
-                
-                // If speed is severely reduced, boost it more aggressively
-                if (speed < originalSpeed * 0.5) {
-                    speed = Math.max(speed, originalSpeed * 0.5);
-                }
-            }
+        // After normal movement, ensure we restore speed much more aggressively
+        if (speed() < originalSpeed()) {
+            // Always restore speed by 5% each frame (no random chance)
+            setSpeed(Math.min(originalSpeed(), speed() * 1.05));
             
-            // Try to recover if car might be stuck
-            if (speed < originalSpeed * 0.3) {
-                recoverFromStuck();
-            }
-
-            double distance = Math.sqrt(
-                    Math.pow(position.getX() - lastRecordedPosition.getX(), 2) +
-                            Math.pow(position.getY() - lastRecordedPosition.getY(), 2));
-
-            if (distance > 5.0) {
-                // Car has moved, update the reference position and time
-                lastRecordedPosition = new Position(position.getX(), position.getY());
-                lastMovementTime = System.currentTimeMillis();
-            } else if (System.currentTimeMillis() - lastMovementTime > STUCK_THRESHOLD_MS) {
-                // Car is stuck, try to recover
-                recoverFromStuck();
-                // Update time to avoid immediate re-detection
-                lastMovementTime = System.currentTimeMillis();
+            // If speed is severely reduced, boost it more aggressively
+            if (speed() < originalSpeed() * 0.5) {
+                setSpeed(Math.max(speed(), originalSpeed() * 0.5));
             }
+        }
+        
+        // Try to recover if car might be stuck
+        if (speed() < originalSpeed() * 0.3) {
+            recoverFromStuck();
+        }
 
+        if (!Position.isWithin(getX(), getY(), lastRecordedX, lastRecordedY, 5.0)) {
+            // Car has moved, update the reference position and time
+            recordMovement();
+        } else if (now() - lastMovementTime > STUCK_THRESHOLD_MS) {
+            // Car is stuck, try to recover
+            recoverFromStuck();
+            // Update time to avoid immediate re-detection
+            lastMovementTime = now();
         }
+
+    }
+
+    private void recordMovement() {
+        lastRecordedX = getX();
+        lastRecordedY = getY();
+        movementRecorded = true;
+        lastMovementTime = now();
     }
 
     private void handleIntersectionMovement() {
@@ -278,222 +547,77 @@ public class Car extends Thread {
         
         Position intersectionPos = currentIntersection.getPosition();
 
-        // Calculate distance to intersection center
-        double distanceToCenter = Math.sqrt(
-                Math.pow(position.getX() - intersectionPos.getX(), 2) +
-                        Math.pow(position.getY() - intersectionPos.getY(), 2)
-        );
-
         // Generate turning path on first entry into intersection
-        if (!turningInProgress && !isFollowingPath) {
-            turningInProgress = true;
-            
-            // Choose a direction, straight or turning
-            List<CarDirection> validDirections = new ArrayList<>();
+        if (!hasFlag(VehicleStore.FLAG_TURNING) && !hasFlag(VehicleStore.FLAG_FOLLOWING_PATH)) {
+            setFlag(VehicleStore.FLAG_TURNING, true);
             
-            // Add going straight as a valid option
-            validDirections.add(direction);
-            
-            // Add turning options (not opposite direction)
-            for (CarDirection dir : CarDirection.values()) {
-                if (dir != direction && dir != getOppositeDirection(direction)) {
-                    validDirections.add(dir);
-                }
+            // higher chance to go straight
+            double goStraightProbability = 0.6; // 60% chance to go straight
+
+            CarDirection routed = routedDirection();
+            if (routed != null) {
+                // Follow the trip's route
+                targetDirection = routed;
+            } else if (random.nextDouble() < goStraightProbability) {
+                // Go straight
+                targetDirection = direction();
+            } else {
+                // Choose a random turning direction, never back the way the car came
+                CarDirection[] turningOptions = TURNS[direction().ordinal()];
+                targetDirection = turningOptions[random.nextInt(turningOptions.length)];
+            }
+            if (routed == null) {
+                targetDirection = avoidClosedLink(targetDirection);
             }
 
-            if (!validDirections.isEmpty()) {
-                Random random = new Random();
-                
-                // higher chance to go straight
-                double goStraightProbability = 0.6; // 60% chance to go straight
-                
-                if (random.nextDouble() < goStraightProbability && validDirections.contains(direction)) {
-                    // Go straight
-                    targetDirection = direction;
-                    System.out.println("Car continuing straight through intersection in direction: " + direction);
-                    
-                    //  simplified path for going straight
-                    generateStraightPath(direction, intersectionPos);
-                } else {
-                    // Choose a random turning direction (exclude current direction)
-                    List<CarDirection> turningOptions = new ArrayList<>(validDirections);
-                    turningOptions.remove(direction); // Remove straight option
-                    
-                    if (!turningOptions.isEmpty()) {
-                        targetDirection = turningOptions.get(random.nextInt(turningOptions.size()));
-                        System.out.println("Preparing to turn from " + direction + " to " + targetDirection);
-                        
-                        // Generate turning path. directly from entry to exit point
-                        generateDirectTurningPath(direction, targetDirection, intersectionPos);
-                    } else {
-                        // Fallback. continue straight
-                        targetDirection = direction;
-                        generateStraightPath(direction, intersectionPos);
-                    }
-                }
-                
-                isFollowingPath = true;
-                currentPathIndex = 0;
-                
-                // Adjust speed based on, going straight or turning
-                if (targetDirection == direction) {
-                    // Maintain normal speed when going straight
-                    speed = ConfigLoader.getInstance().getCarSpeed();
-                } else {
-                    // Slow down for turns
-                    speed = ConfigLoader.getInstance().getTurningSpeed();
-                }
+            // Straight or curved, directly from entry to exit point
+            turningPath = currentIntersection.getTurningPath(direction(), targetDirection);
+            // Cars are let in a little before or after the entry point, pick up from where this one is
+            pathDistance = turningPath.distanceFrom(getX(), getY());
+            setFlag(VehicleStore.FLAG_FOLLOWING_PATH, true);
+
+            // Adjust speed based on, going straight or turning
+            if (targetDirection == direction()) {
+                // Maintain normal speed when going straight
+                setSpeed(config.simulation().carSpeed());
             } else {
-                // Fallback. continue straight
-                targetDirection = direction;
-                exitIntersection();
+                // Slow down for turns
+                setSpeed(config.simulation().carSpeed() * config.car().turningSpeedFactor());
             }
             return;
         }
 
         // Follow the turning path
-        if (isFollowingPath && currentPathIndex < turningPath.size()) {
-            // Move to the next point on the path
-            Position nextPoint = turningPath.get(currentPathIndex);
-            
-            // Calculate direction to next point
-            double dx = nextPoint.getX() - position.getX();
-            double dy = nextPoint.getY() - position.getY();
-            double distanceToPoint = Math.sqrt(dx * dx + dy * dy);
-            
-            if (distanceToPoint < speed) {
-                // reached or can surpass this point in this step
-                position.setX(nextPoint.getX());
-                position.setY(nextPoint.getY());
-                currentPathIndex++;
-            } else {
-                // Move toward the point at current speed
-                position.setX(position.getX() + (dx / distanceToPoint) * speed);
-                position.setY(position.getY() + (dy / distanceToPoint) * speed);
-            }
-            
+        if (hasFlag(VehicleStore.FLAG_FOLLOWING_PATH) && turningPath != null) {
+            // Move along the path at current speed
+            pathDistance += speed() * stepScale;
+            setX(turningPath.xAt(pathDistance));
+            setY(turningPath.yAt(pathDistance));
+
             // Check if reached the end of the path
-            if (currentPathIndex >= turningPath.size()) {
+            if (pathDistance >= turningPath.length()) {
                 // Find matching road, finalize the turn
                 setDirection(targetDirection);
                 Road bestRoad = findMatchingRoad(targetDirection, intersectionPos);
                 if (bestRoad != null) {
-                    currentRoad = bestRoad;
+                    setCurrentRoad(bestRoad);
                     adjustFinalPositionOnRoad(bestRoad);
                 } else {
                     emergencyExitIntersection(intersectionPos);
                 }
                 
                 // Reset path following and restore ORIGINAL speed (not default)
-                isFollowingPath = false;
-                turningPath.clear();
-                speed = originalSpeed;
+                setFlag(VehicleStore.FLAG_FOLLOWING_PATH, false);
+                turningPath = null;
+                setSpeed(originalSpeed());
                 exitIntersection();
             }
         }
     }
-    
-    // generates a straight path through intersection
-    private void generateStraightPath(CarDirection travelDirection, Position center) {
-        turningPath.clear();
-        
-        int intersectionRadius = ConfigLoader.getInstance().getIntersectionRadius();
-        
-        // Calculate entry and exit points of the intersection
-        Position entryPoint = calculateIntersectionEntryPoint(center, travelDirection, intersectionRadius);
-        Position exitPoint = calculateIntersectionExitPoint(center, travelDirection, intersectionRadius);
-        
-        // For going straight, entry, exit, and maybe one point in between
-        turningPath.add(new Position(position.getX(), position.getY()));
-        turningPath.add(exitPoint);
-    }
-
-    // Generates a direct turning path without going to center
-    private void generateDirectTurningPath(CarDirection fromDirection, CarDirection toDirection, Position center) {
-        turningPath.clear();
-        
-        int intersectionRadius = ConfigLoader.getInstance().getIntersectionRadius();
-        int roadWidth = ConfigLoader.getInstance().getRoadWidth();
-        
-        // Calculate entry and exit points of the intersection
-        Position entryPoint = calculateIntersectionEntryPoint(center, fromDirection, intersectionRadius);
-        Position exitPoint = calculateIntersectionExitPoint(center, toDirection, intersectionRadius);
-        
-        // Add current position as first point
-        turningPath.add(new Position(position.getX(), position.getY()));
-        
-        // Determine control points without going to center
-        Position controlPoint1, controlPoint2;
-        
-        // Create control points for natural arc
-        controlPoint1 = createControlPoint(entryPoint, fromDirection, intersectionRadius * 0.6);
-        controlPoint2 = createControlPoint(exitPoint, getOppositeDirection(toDirection), intersectionRadius * 0.6);
-        
-        // Generate points along the curve
-        int numPoints = ConfigLoader.getInstance().getTurningPathPoints(); 
-        for (int i = 1; i <= numPoints; i++) {
-            double t = i / (double) numPoints;
-            
-            // Calculate point along curve
-            double x = bezierPoint(t, entryPoint.getX(), controlPoint1.getX(), 
-                                 controlPoint2.getX(), exitPoint.getX());
-            double y = bezierPoint(t, entryPoint.getY(), controlPoint1.getY(), 
-                                 controlPoint2.getY(), exitPoint.getY());
-            
-            // Add point to path
-            turningPath.add(new Position(x, y));
-        }
-        
-        // Add exit point, final destination
-        turningPath.add(exitPoint);
-    }
 
-    // Bezier curve calculation
-    private Position createControlPoint(Position startPoint, CarDirection direction, double distance) {
-        double x = startPoint.getX();
-        double y = startPoint.getY();
-        
-        // Extend in the specified direction
-        switch (direction) {
-            case NORTH: return new Position(x, y - distance);
-            case SOUTH: return new Position(x, y + distance);
-            case EAST: return new Position(x + distance, y);
-            case WEST: return new Position(x - distance, y);
-            default: return new Position(x, y);
-        }
-    }
-
-    //calcuclate entry point
-    private Position calculateIntersectionEntryPoint(Position center, CarDirection direction, int radius) {
-        // Adjust entry point based on lane offset, to keep cars in their lane
-        double adjustedRadius = radius * 0.9; //
-        
-        switch (direction) {
-            case NORTH: return new Position(center.getX() + laneOffset, center.getY() + adjustedRadius);
-            case SOUTH: return new Position(center.getX() + laneOffset, center.getY() - adjustedRadius);
-            case EAST: return new Position(center.getX() - adjustedRadius, center.getY() + laneOffset);
-            case WEST: return new Position(center.getX() + adjustedRadius, center.getY() + laneOffset);
-            default: return new Position(center.getX(), center.getY());
-        }
-    }
-
-    // Calculate where the car should exit, taking into account proper lane placement
-    private Position calculateIntersectionExitPoint(Position center, CarDirection direction, int radius) {
-        double adjustedRadius = radius * 0.9;
-        int laneOffset = calculateLaneOffset(direction);
-        
-        switch (direction) {
-            case NORTH: return new Position(center.getX() + laneOffset, center.getY() - adjustedRadius);
-            case SOUTH: return new Position(center.getX() + laneOffset, center.getY() + adjustedRadius);
-            case EAST: return new Position(center.getX() + adjustedRadius, center.getY() + laneOffset);
-            case WEST: return new Position(center.getX() - adjustedRadius, center.getY() + laneOffset);
-            default: return new Position(center.getX(), center.getY());
-        }
-    }
-    
     //laneOffset calculation
     private int calculateLaneOffset(CarDirection dir) {
-        int roadWidth = ConfigLoader.getInstance().getRoadWidth();
+        int roadWidth = config.map().roadWidth();
         int laneWidth = roadWidth / 2;
 
         switch (dir) {
@@ -511,9 +635,9 @@ public class Car extends Thread {
     private void adjustFinalPositionOnRoad(Road road) {
 
         if (targetDirection == CarDirection.NORTH || targetDirection == CarDirection.SOUTH) {
-            position.setX(road.getX1() + laneOffset);
+            setX(road.getX1() + laneOffset());
         } else { // EAST or WEST
-            position.setY(road.getY1() + laneOffset);
+            setY(road.getY1() + laneOffset());
         }
     }
 
@@ -524,24 +648,24 @@ public class Car extends Thread {
         int exitDistance = 35; // Slightly larger than intersection radius
     
         // Set X position based on road with lane offset
-        if (direction == CarDirection.NORTH || direction == CarDirection.SOUTH) {
-            position.setX(road.getX1() + laneOffset);
+        if (direction() == CarDirection.NORTH || direction() == CarDirection.SOUTH) {
+            setX(road.getX1() + laneOffset());
     
             // Set Y position to be outside intersection
-            if (direction == CarDirection.NORTH) {
-                position.setY(intersectionPos.getY() - exitDistance);
+            if (direction() == CarDirection.NORTH) {
+                setY(intersectionPos.getY() - exitDistance);
             } else { // SOUTH
-                position.setY(intersectionPos.getY() + exitDistance);
+                setY(intersectionPos.getY() + exitDistance);
             }
         }
         else { // EAST or WEST
-            position.setY(road.getY1() + laneOffset);  // Use consistent lane offset
+            setY(road.getY1() + laneOffset());  // Use consistent lane offset
     
             // Set X position to be outside intersection
-            if (direction == CarDirection.WEST) {
-                position.setX(intersectionPos.getX() - exitDistance);
+            if (direction() == CarDirection.WEST) {
+                setX(intersectionPos.getX() - exitDistance);
             } else { // EAST
-                position.setX(intersectionPos.getX() + exitDistance);
+                setX(intersectionPos.getX() + exitDistance);
             }
         }
     
@@ -550,26 +674,20 @@ public class Car extends Thread {
 
     // emergency exit logic, if cars get stuck in intersection
     private void emergencyExitIntersection(Position intersectionPos) {
-        // Log this emergency situation
-        System.out.println("Emergency exit triggered at: " + intersectionPos.getX() + ", " + intersectionPos.getY());
-
         // Force refresh of car's current road
-        Road newRoad = findAnyValidRoad(direction);
+        Road newRoad = findAnyValidRoad(direction());
         if (newRoad != null) {
-            currentRoad = newRoad;
-            System.out.println("Found recovery road");
-        } else {
-            System.out.println("Failed to find recovery road - car might disappear");
+            setCurrentRoad(newRoad);
         }
     }
 
     // method to find any valid road in the given direction
-    private Road findAnyValidRoad(CarDirection direction) {
+    private Road findAnyValidRoad(CarDirection dir) {
         List<Road> allRoads = getRoadsFromSimulation();
         for (Road road : allRoads) {
-            if ((direction == CarDirection.NORTH || direction == CarDirection.SOUTH) && road.isVertical()) {
+            if ((dir == CarDirection.NORTH || dir == CarDirection.SOUTH) && road.isVertical()) {
                 return road;
-            } else if ((direction == CarDirection.EAST || direction == CarDirection.WEST) && road.isHorizontal()) {
+            } else if ((dir == CarDirection.EAST || dir == CarDirection.WEST) && road.isHorizontal()) {
                 return road;
             }
         }
@@ -579,36 +697,45 @@ public class Car extends Thread {
     //initialize the entry time
     private void checkIntersectionEntry() {
         if (currentIntersection == null) {
+            // With a road network only the next intersection on the link can be entered
+            RoadNetwork network = network();
+            if (network != null && link != RoadNetwork.NONE) {
+                int next = upcomingIntersection(network);
+                if (next != RoadNetwork.NONE && isInIntersection(network.getIntersection(next))) {
+                    enterIntersection(network.getIntersection(next));
+                }
+                return;
+            }
             for (Intersection intersection : intersections) {
                 if (isInIntersection(intersection)) {
-                    currentIntersection = intersection;
-                    // Set the entry time when car enters an intersection
-                    intersectionEntryTime = System.currentTimeMillis();
-                    System.out.println("Car entered intersection at " +
-                            intersection.getPosition().getX() + "," +
-                            intersection.getPosition().getY());
+                    enterIntersection(intersection);
                     break;
                 }
             }
         }
     }
 
+    private void enterIntersection(Intersection intersection) {
+        setCurrentIntersection(intersection);
+        // Set the entry time when car enters an intersection
+        intersectionEntryTime = now();
+    }
+
     private void moveInDirection() {
-        synchronized(positionLock) {
-            switch (direction) {
-                case NORTH:
-                    position.setY(position.getY() - speed);
-                    break;
-                case SOUTH:
-                    position.setY(position.getY() + speed);
-                    break;
-                case EAST:
-                    position.setX(position.getX() + speed);
-                    break;
-                case WEST:
-                    position.setX(position.getX() - speed);
-                    break;
-            }
+        double stepDistance = speed() * stepScale;
+        switch (direction()) {
+            case NORTH:
+                setY(getY() - stepDistance);
+                break;
+            case SOUTH:
+                setY(getY() + stepDistance);
+                break;
+            case EAST:
+                setX(getX() + stepDistance);
+                break;
+            case WEST:
+                setX(getX() - stepDistance);
+                break;
         }
     }
 
@@ -619,15 +746,15 @@ public class Car extends Thread {
         Position lightPos = trafficLight.getPosition();
 
         // Check if we've passed the light based on direction
-        switch (direction) {
+        switch (direction()) {
             case NORTH:
-                return position.getY() < lightPos.getY();
+                return getY() < lightPos.getY();
             case SOUTH:
-                return position.getY() > lightPos.getY();
+                return getY() > lightPos.getY();
             case EAST:
-                return position.getX() > lightPos.getX();
+                return getX() > lightPos.getX();
             case WEST:
-                return position.getX() < lightPos.getX();
+                return getX() < lightPos.getX();
             default:
                 return false;
         }
@@ -636,8 +763,7 @@ public class Car extends Thread {
     // calculates if car can exit intersection, forces car out if stuck
     private boolean isSafeToExitIntersection() {
         // More aggressive timeout - force exit after just 2 seconds
-        if (System.currentTimeMillis() - intersectionEntryTime > 2000) {
-            System.out.println("Forcing exit from intersection due to TIMEOUT");
+        if (now() - intersectionEntryTime > 2000) {
             return true;
         }
         
@@ -646,21 +772,34 @@ public class Car extends Thread {
         
         int blockedExitCount = 0;
         
-        for (Car otherCar : nearbyVehicles) {
-            if (otherCar == this) continue;
-            
-            // Only check cars in our target direction
-            if (targetDirection != null && otherCar.getDirection() != targetDirection) continue;
-            
-            double distance = distanceTo(otherCar.getPosition());
-            if (distance < exitSafetyRadius) {
-                blockedExitCount++;
+        // Only the grid cells within the safety radius can hold a blocking car
+        SpatialHash grid = simulation != null ? simulation.getSpatialHash() : null;
+        if (grid != null) {
+            double myX = getX();
+            double myY = getY();
+            WorldSnapshot snapshot = simulation.getSnapshot();
+            for (int cellX = grid.cell(myX - exitSafetyRadius); cellX <= grid.cell(myX + exitSafetyRadius); cellX++) {
+                for (int cellY = grid.cell(myY - exitSafetyRadius); cellY <= grid.cell(myY + exitSafetyRadius); cellY++) {
+                    int bucket = grid.bucket(cellX, cellY);
+                    for (int i = grid.bucketStart(bucket), end = grid.bucketEnd(bucket); i < end; i++) {
+                        int other = grid.entry(i);
+                        if (other == slot) continue;
+
+                        // Only check cars in our target direction
+                        if (targetDirection != null && snapshot.getDirectionOrdinal(other) != targetDirection.ordinal()) continue;
+
+                        double dx = snapshot.getX(other) - myX;
+                        double dy = snapshot.getY(other) - myY;
+                        if (dx * dx + dy * dy < exitSafetyRadius * exitSafetyRadius) {
+                            blockedExitCount++;
+                        }
+                    }
+                }
             }
         }
         
         //single blocking car should be ignored after 1.5 seconds
-        if (blockedExitCount > 0 && System.currentTimeMillis() - intersectionEntryTime > 1500) {
-            System.out.println("Forcing exit despite " + blockedExitCount + " blocking cars");
+        if (blockedExitCount > 0 && now() - intersectionEntryTime > 1500) {
             return true;
         }
         
@@ -669,11 +808,9 @@ public class Car extends Thread {
 
     // super-emergency exit mechanism
     private void forceExitIntersection() {
-        System.out.println("EMERGENCY FORCE EXIT");
-        
         // Ensure there is a valid direction
         if (targetDirection == null) {
-            targetDirection = direction;
+            targetDirection = direction();
         }
         
         // Set this direction
@@ -686,39 +823,39 @@ public class Car extends Thread {
         // Reposition the car outside the intersection in the direction of travel
         switch (targetDirection) {
             case NORTH:
-                position.setX(intersectionPos.getX() + laneOffset);
-                position.setY(intersectionPos.getY() - forcedDistance);
+                setX(intersectionPos.getX() + laneOffset());
+                setY(intersectionPos.getY() - forcedDistance);
                 break;
             case SOUTH:
-                position.setX(intersectionPos.getX() + laneOffset);
-                position.setY(intersectionPos.getY() + forcedDistance);
+                setX(intersectionPos.getX() + laneOffset());
+                setY(intersectionPos.getY() + forcedDistance);
                 break;
             case EAST:
-                position.setX(intersectionPos.getX() + forcedDistance);
-                position.setY(intersectionPos.getY() + laneOffset);
+                setX(intersectionPos.getX() + forcedDistance);
+                setY(intersectionPos.getY() + laneOffset());
                 break;
             case WEST:
-                position.setX(intersectionPos.getX() - forcedDistance);
-                position.setY(intersectionPos.getY() + laneOffset);
+                setX(intersectionPos.getX() - forcedDistance);
+                setY(intersectionPos.getY() + laneOffset());
                 break;
         }
         
         // Try to find a valid road, but don't worry if we can't
         Road bestRoad = findMatchingRoad(targetDirection, intersectionPos);
         if (bestRoad != null) {
-            currentRoad = bestRoad;
+            setCurrentRoad(bestRoad);
         }
         
         // Reset all intersection-related states
-        currentIntersection = null;
-        turningInProgress = false;
-        isFollowingPath = false;
+        setCurrentIntersection(null);
+        setFlag(VehicleStore.FLAG_TURNING, false);
+        setFlag(VehicleStore.FLAG_FOLLOWING_PATH, false);
         targetDirection = null;
-        speed = originalSpeed;
+        setSpeed(originalSpeed());
         
         // cooldown period
-        isInCooldown = true;
-        cooldownEndTime = System.currentTimeMillis() + COOLDOWN_DURATION;
+        setFlag(VehicleStore.FLAG_IN_COOLDOWN, true);
+        cooldownEndTime = now() + COOLDOWN_DURATION;
     }
 
     // exit intersection logic
@@ -736,23 +873,23 @@ public class Car extends Thread {
         
         // Try to ensure we're on a valid road
         if (currentRoad == null) {
-            Road bestRoad = findMatchingRoad(direction, currentIntersection.getPosition());
+            Road bestRoad = findMatchingRoad(direction(), currentIntersection.getPosition());
             if (bestRoad != null) {
-                currentRoad = bestRoad;
+                setCurrentRoad(bestRoad);
                 adjustFinalPositionOnRoad(bestRoad);
             }
         }
         
-        currentIntersection = null;
-        turningInProgress = false;
+        setCurrentIntersection(null);
+        setFlag(VehicleStore.FLAG_TURNING, false);
         targetDirection = null;
 
         // cooldown period after exiting intersection
-        isInCooldown = true;
-        cooldownEndTime = System.currentTimeMillis() + COOLDOWN_DURATION;
+        setFlag(VehicleStore.FLAG_IN_COOLDOWN, true);
+        cooldownEndTime = now() + COOLDOWN_DURATION;
         
         // Make sure speed is restored to original
-        speed = originalSpeed;
+        setSpeed(originalSpeed());
     }
 
 
@@ -760,7 +897,7 @@ public class Car extends Thread {
         if (currentIntersection != null || currentRoad == null) return;
         
         // Calculate precise lane offset based on direction
-        int roadWidth = ConfigLoader.getInstance().getRoadWidth();
+        int roadWidth = config.map().roadWidth();
         int laneWidth = roadWidth / 2;
         int centerOffset = laneWidth / 2; // Position in center of lane
         
@@ -768,7 +905,7 @@ public class Car extends Thread {
         if (currentRoad.isHorizontal()) {
             // Horizontal road - adjust Y position
             double targetY;
-            if (direction == CarDirection.EAST) {
+            if (direction() == CarDirection.EAST) {
                 // East - use bottom lane (positive offset)
                 targetY = currentRoad.getY1() + centerOffset;
             } else {
@@ -776,11 +913,11 @@ public class Car extends Thread {
                 targetY = currentRoad.getY1() - centerOffset;
             }
             // More assertive adjustment 0.9/0.1
-            position.setY(position.getY() * 0.8 + targetY * 0.2);
+            setY(getY() * 0.8 + targetY * 0.2);
         } else {
             // Vertical road - adjust X position
             double targetX;
-            if (direction == CarDirection.SOUTH) {
+            if (direction() == CarDirection.SOUTH) {
                 // South - use LEFT lane (negative offset)
                 targetX = currentRoad.getX1() - centerOffset;
             } else {
@@ -788,7 +925,7 @@ public class Car extends Thread {
                 targetX = currentRoad.getX1() + centerOffset;
             }
             // More assertive adjustment 0.9/0.1
-            position.setX(position.getX() * 0.8 + targetX * 0.2);
+            setX(getX() * 0.8 + targetX * 0.2);
         }
     }
 
@@ -797,18 +934,14 @@ public class Car extends Thread {
     }
 
     private boolean isInIntersection(Intersection intersection) {
-        Position intPos = intersection.getPosition();
-        double distance = Math.sqrt(
-                Math.pow(position.getX() - intPos.getX(), 2) +
-                        Math.pow(position.getY() - intPos.getY(), 2)
-        );
-        
+        boolean inside = intersection.getPosition().isWithin(getX(), getY(), 30); // Intersection radius
+
         // If we're entering an intersection, store the current speed
-        if (distance < 30 && currentIntersection == null) {
-            originalSpeed = speed;
+        if (inside && currentIntersection == null) {
+            setOriginalSpeed(speed());
         }
-        
-        return distance < 30; // Intersection radius
+
+        return inside;
     }
 
 
@@ -816,54 +949,69 @@ public class Car extends Thread {
         // If we're already in an intersection, don't check traffic lights
         if (currentIntersection != null) return false;
 
+        // With a road network the only light that matters is the one at the next intersection
+        RoadNetwork network = network();
+        if (network != null && link != RoadNetwork.NONE) {
+            int next = upcomingIntersection(network);
+            return next != RoadNetwork.NONE && shouldStopAt(network.getIntersection(next));
+        }
+
         // Check for relevant traffic lights in our path
         for (Intersection intersection : intersections) {
-            // Only check if we're approaching this intersection
-            if (isApproachingIntersection(intersection)) {
-                // Get the traffic light facing our direction
-                TrafficLight relevantLight = getRelevantTrafficLight(intersection);
-
-                if (relevantLight != null && relevantLight.getLightState() == TrafficLight.LightState.RED) {
-                    double distance = distanceTo(relevantLight.getPosition());
-
-                    // Stop if we're within detection radius but not too close
-                    if (distance < detectionRadius && distance > 5) {
-                        // Notify the intersection that a car is waiting
-                        // Convert car direction to traffic light direction
-                        TrafficLight.Direction waitDirection;
-                        switch (direction) {
-                            case NORTH: waitDirection = TrafficLight.Direction.SOUTH; break;
-                            case SOUTH: waitDirection = TrafficLight.Direction.NORTH; break;
-                            case EAST: waitDirection = TrafficLight.Direction.WEST; break;
-                            case WEST: waitDirection = TrafficLight.Direction.EAST; break;
-                            default: waitDirection = TrafficLight.Direction.NORTH;
-                        }
-                        
-                        // Register this car as waiting
-                        intersection.addWaitingCar(waitDirection, this);
-                        
-                        return true;
-                    }
-                }
+            if (shouldStopAt(intersection)) {
+                return true;
             }
         }
 
         return false;
     }
 
+    private boolean shouldStopAt(Intersection intersection) {
+        // Only check if we're approaching this intersection
+        if (!isApproachingIntersection(intersection)) {
+            return false;
+        }
+
+        // Get the traffic light facing our direction
+        TrafficLight relevantLight = getRelevantTrafficLight(intersection);
+
+        if (relevantLight != null && relevantLight.getLightState() == TrafficLight.LightState.RED) {
+            double distanceSquared = distanceSquaredTo(relevantLight.getPosition());
+
+            // Stop if we're within detection radius but not too close
+            if (distanceSquared < detectionRadius * detectionRadius && distanceSquared > 5 * 5) {
+                // Notify the intersection that a car is waiting
+                // Convert car direction to traffic light direction
+                TrafficLight.Direction waitDirection;
+                switch (direction()) {
+                    case NORTH: waitDirection = TrafficLight.Direction.SOUTH; break;
+                    case SOUTH: waitDirection = TrafficLight.Direction.NORTH; break;
+                    case EAST: waitDirection = TrafficLight.Direction.WEST; break;
+                    case WEST: waitDirection = TrafficLight.Direction.EAST; break;
+                    default: waitDirection = TrafficLight.Direction.NORTH;
+                }
+
+                // Register this car as waiting
+                registerWaiting(intersection, waitDirection);
+
+                return true;
+            }
+        }
+        return false;
+    }
+
 
     private boolean isApproachingIntersection(Intersection intersection) {
         Position intPos = intersection.getPosition();
-        double distance = distanceTo(intPos);
 
         // Check if we're close enough and heading toward it
-        if (distance > 100) return false;
+        if (distanceSquaredTo(intPos) > 100 * 100) return false;
 
-        switch (direction) {
-            case NORTH: return position.getY() > intPos.getY();
-            case SOUTH: return position.getY() < intPos.getY();
-            case EAST: return position.getX() < intPos.getX();
-            case WEST: return position.getX() > intPos.getX();
+        switch (direction()) {
+            case NORTH: return getY() > intPos.getY();
+            case SOUTH: return getY() < intPos.getY();
+            case EAST: return getX() < intPos.getX();
+            case WEST: return getX() > intPos.getX();
             default: return false;
         }
     }
@@ -872,7 +1020,7 @@ public class Car extends Thread {
         // The traffic light we need to check is facing opposite our direction
         TrafficLight.Direction lightDirection;
 
-        switch (direction) {
+        switch (direction()) {
             case NORTH: lightDirection = TrafficLight.Direction.SOUTH; break;
             case SOUTH: lightDirection = TrafficLight.Direction.NORTH; break;
             case EAST: lightDirection = TrafficLight.Direction.WEST; break;
@@ -885,12 +1033,12 @@ public class Car extends Thread {
 
 
     private CarDirection getOppositeDirection() {
-        switch (direction) {
+        switch (direction()) {
             case NORTH: return CarDirection.SOUTH;
             case SOUTH: return CarDirection.NORTH;
             case EAST: return CarDirection.WEST;
             case WEST: return CarDirection.EAST;
-            default: return direction;
+            default: return direction();
         }
     }
 
@@ -904,112 +1052,176 @@ public class Car extends Thread {
         }
     }
 
-    // stop for nearby vehicles
-    private boolean shouldStopForNearbyVehicle() {
-        if (nearbyVehicles == null || nearbyVehicles.isEmpty()) {
-            return false;
+    // Intersections are shared between cars, so during the compute phase this is deferred too
+    private void registerWaiting(Intersection intersection, TrafficLight.Direction waitDirection) {
+        if (simulation != null && simulation.getTickIntents().isOpen() && store == simulation.getVehicles()) {
+            simulation.getTickIntents().waitAt(slot, intersection, waitDirection);
+        } else {
+            intersection.addWaitingCar(waitDirection, this);
         }
+    }
 
-        boolean shouldSlow = false;
+    // stop for nearby vehicles
+    // Package-private so the benchmarks can measure it on its own
+    boolean shouldStopForNearbyVehicle() {
         double slowDownFactor = 1.0;
-        
-        for (Car otherCar : nearbyVehicles) {
-            if (otherCar == this) continue;
 
-            // Only consider cars that are directly ahead
-            Position otherPos = otherCar.getPosition();
-            boolean isAhead = false;
-            
-            // more precise angles to check only cars directly ahead
-            switch (direction) {
-                case NORTH:
-                    isAhead = otherPos.getY() < position.getY() && 
-                              Math.abs(otherPos.getX() - position.getX()) < size * 1.2;
-                    break;
-                case SOUTH:
-                    isAhead = otherPos.getY() > position.getY() && 
-                              Math.abs(otherPos.getX() - position.getX()) < size * 1.2;
-                    break;
-                case EAST:
-                    isAhead = otherPos.getX() > position.getX() && 
-                              Math.abs(otherPos.getY() - position.getY()) < size * 1.2;
-                    break;
-                case WEST:
-                    isAhead = otherPos.getX() < position.getX() && 
-                              Math.abs(otherPos.getY() - position.getY()) < size * 1.2;
-                    break;
+        if (lane != null) {
+            // On a road the lane queue already knows the car directly ahead,
+            // its position is read from the published snapshot like every other neighbour
+            if (leader != null && simulation != null) {
+                WorldSnapshot snapshot = simulation.getSnapshot();
+                slowDownFactor = followingFactor(snapshot.getX(leader.slot), snapshot.getY(leader.slot));
             }
+        } else {
+            slowDownFactor = followingFactorFromGrid();
+        }
 
-            if (isAhead) {
-                double distance = distanceTo(otherPos);
-                if (distance < size + 2) {  // Only emergency brake when actually touching
-                    // Slow dramatically but don't completely stop
-                    speed *= 0.3;
-                    return false; // Don't stop completely
-                } else if (distance < minSafeDistance) {
-                    // Slow down based on distance, but less aggressively
-                    shouldSlow = true;
-                    double factor = distance / minSafeDistance;
-                    // Scale the factor to be less harsh (0.6-1.0 instead of 0-1.0)
-                    factor = 0.6 + factor * 0.4;
-                    slowDownFactor = Math.min(slowDownFactor, factor);
-                }
-            }
+        if (slowDownFactor < 0) {  // Only emergency brake when actually touching
+            // Slow dramatically but don't completely stop
+            setSpeed(speed() * 0.3);
+            return false; // Don't stop completely
         }
         
         // Apply more gentle slowing
-        if (shouldSlow) {
+        if (slowDownFactor < 1.0) {
             // Less aggressive slowdown (0.9 instead of 0.8)
-            speed = speed * slowDownFactor * 0.9;
+            setSpeed(speed() * slowDownFactor * 0.9);
             return false;
         }
 
         return false; // Never completely stop
     }
 
+    // Inside an intersection there is no lane, so look for cars ahead in the spatial hash
+    private double followingFactorFromGrid() {
+        SpatialHash grid = simulation != null ? simulation.getSpatialHash() : null;
+        if (grid == null) {
+            return 1.0;
+        }
+
+        double slowDownFactor = 1.0;
+        double myX = getX();
+        double myY = getY();
+        WorldSnapshot snapshot = simulation.getSnapshot();
+        double lateral = size * 1.2;
+
+        // Only look in the area where a car can be directly ahead and closer than the safe distance.
+        // With cells one safe distance wide that is our own cell and the one ahead,
+        // plus the neighbour cell when we drive close to a cell border
+        double minX, maxX, minY, maxY;
+        switch (direction()) {
+            case NORTH:
+                minX = myX - lateral; maxX = myX + lateral;
+                minY = myY - minSafeDistance; maxY = myY;
+                break;
+            case SOUTH:
+                minX = myX - lateral; maxX = myX + lateral;
+                minY = myY; maxY = myY + minSafeDistance;
+                break;
+            case EAST:
+                minX = myX; maxX = myX + minSafeDistance;
+                minY = myY - lateral; maxY = myY + lateral;
+                break;
+            default: // WEST
+                minX = myX - minSafeDistance; maxX = myX;
+                minY = myY - lateral; maxY = myY + lateral;
+                break;
+        }
+
+        for (int cellX = grid.cell(minX), lastCellX = grid.cell(maxX); cellX <= lastCellX; cellX++) {
+            for (int cellY = grid.cell(minY), lastCellY = grid.cell(maxY); cellY <= lastCellY; cellY++) {
+                int bucket = grid.bucket(cellX, cellY);
+                for (int i = grid.bucketStart(bucket), end = grid.bucketEnd(bucket); i < end; i++) {
+                    int other = grid.entry(i);
+                    if (other == slot) continue;
+
+                    double factor = followingFactor(snapshot.getX(other), snapshot.getY(other));
+                    if (factor < 0) {
+                        return factor;
+                    }
+                    slowDownFactor = Math.min(slowDownFactor, factor);
+                }
+            }
+        }
+        return slowDownFactor;
+    }
+
+    // How much to slow down for a car at the given position.
+    // 1.0 means not at all, a negative value means we are touching it and must brake hard
+    private double followingFactor(double otherX, double otherY) {
+        double myX = getX();
+        double myY = getY();
+        double lateral = size * 1.2;
+
+        // Only consider cars that are directly ahead
+        boolean isAhead = false;
+
+        // more precise angles to check only cars directly ahead
+        switch (direction()) {
+            case NORTH:
+                isAhead = otherY < myY &&
+                          Math.abs(otherX - myX) < lateral;
+                break;
+            case SOUTH:
+                isAhead = otherY > myY &&
+                          Math.abs(otherX - myX) < lateral;
+                break;
+            case EAST:
+                isAhead = otherX > myX &&
+                          Math.abs(otherY - myY) < lateral;
+                break;
+            case WEST:
+                isAhead = otherX < myX &&
+                          Math.abs(otherY - myY) < lateral;
+                break;
+        }
+
+        if (isAhead) {
+            double distanceSquared = Position.distanceSquared(myX, myY, otherX, otherY);
+            if (distanceSquared < (size + 2) * (size + 2)) {
+                return -1;
+            } else if (distanceSquared < minSafeDistance * minSafeDistance) {
+                // Slow down based on distance, but less aggressively
+                double factor = Math.sqrt(distanceSquared) / minSafeDistance;
+                // Scale the factor to be less harsh (0.6-1.0 instead of 0-1.0)
+                return 0.6 + factor * 0.4;
+            }
+        }
+        return 1.0;
+    }
+
     public void setSimulation(Simulation simulation) {
         this.simulation = simulation;
     }
 
-    private double distanceTo(Position target) {
-        return Math.sqrt(
-                Math.pow(position.getX() - target.getX(), 2) +
-                        Math.pow(position.getY() - target.getY(), 2)
-        );
+    private double distanceSquaredTo(Position target) {
+        return target.distanceSquaredTo(getX(), getY());
     }
 
 
     public boolean checkCollision(TrafficLight trafficLight) {
         if (trafficLight == null) return false;
 
-        // Calculate distance between car and traffic light
-        double distance = distanceTo(trafficLight.getPosition());
-
-        // Use ConfigLoader to get the traffic light size instead of direct access
-        int trafficLightSize = ConfigLoader.getInstance().getTrafficLightSize();
+        // Traffic light size from the map config instead of direct access
+        int trafficLightSize = config.trafficLight().size();
 
         // Check if distance is less than sum of radiuses
-        return distance < ((double) size / 2 + (double) trafficLightSize / 2);
+        return trafficLight.getPosition().isWithin(getX(), getY(), (double) size / 2 + (double) trafficLightSize / 2);
     }
 
     public void setSpeed(double speed) {
-        this.speed = speed;
+        store.speed[slot] = speed;
     }
 
 
-    private double distanceBetween(Position p1, Position p2) {
-        return Math.sqrt(
-                Math.pow(p1.getX() - p2.getX(), 2) +
-                        Math.pow(p1.getY() - p2.getY(), 2)
-        );
-    }
+    private Road findMatchingRoad(CarDirection dir, Position intersectionPos) {
+        // The road network knows which roads cross at the intersection
+        RoadNetwork network = network();
+        if (network != null && currentIntersection != null && currentIntersection.getIndex() >= 0) {
+            return network.getRoad(network.roadThrough(currentIntersection.getIndex(), dir));
+        }
 
-    private double bezierPoint(double t, double p0, double p1, double p2, double p3) {
-        double mt = 1 - t;
-        return mt * mt * mt * p0 + 3 * mt * mt * t * p1 + 3 * mt * t * t * p2 + t * t * t * p3;
-    }
-    
-    private Road findMatchingRoad(CarDirection direction, Position intersectionPos) {
         // Get all roads from simulation
         List<Road> allRoads = getRoadsFromSimulation();
         if (allRoads.isEmpty()) {
@@ -1025,9 +1237,9 @@ public class Car extends Thread {
             // For EAST/WEST, we need a horizontal road
             boolean isDirectionCompatible = false;
             
-            if ((direction == CarDirection.NORTH || direction == CarDirection.SOUTH) && road.isVertical()) {
+            if ((dir == CarDirection.NORTH || dir == CarDirection.SOUTH) && road.isVertical()) {
                 isDirectionCompatible = true;
-            } else if ((direction == CarDirection.EAST || direction == CarDirection.WEST) && road.isHorizontal()) {
+            } else if ((dir == CarDirection.EAST || dir == CarDirection.WEST) && road.isHorizontal()) {
                 isDirectionCompatible = true;
             }
             
@@ -1058,11 +1270,11 @@ public class Car extends Thread {
         double recoveryDistance = 1.0; // Was 0.5
         double angle = random.nextDouble() * 2 * Math.PI;
         
-        position.setX(position.getX() + Math.cos(angle) * recoveryDistance);
-        position.setY(position.getY() + Math.sin(angle) * recoveryDistance);
+        setX(getX() + Math.cos(angle) * recoveryDistance);
+        setY(getY() + Math.sin(angle) * recoveryDistance);
         
         // aggressive speed recovery
-        speed = originalSpeed * 0.9; // for less aggressive recovery, 0.7-0.5
+        setSpeed(originalSpeed() * 0.9); // for less aggressive recovery, 0.7-0.5
     }
 }
 
@@ -0,0 +1,9 @@
+package com.oblig.obj_oblig_2;
+
+public record CarConfig(int size, int turningPathPoints, double turningSpeedFactor, double straightThroughProbability) {
+
+    // Default is 2 car lengths
+    public double minCarDistance() {
+        return size * 2;
+    }
+}
@@ -0,0 +1,28 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.List;
+
+// Strategy for stepping every car once per engine tick
+public interface CarExecutor {
+
+    // Step all cars by dt seconds, returns when every car has been stepped
+    void step(List<Car> cars, double dt);
+
+    // Release any threads held by the executor
+    default void shutdown() {
+    }
+
+    // Look up an executor by the short name used on the command line
+    static CarExecutor forName(String name) {
+        switch (name) {
+            case "single":
+                return new SingleThreadCarExecutor();
+            case "forkjoin":
+                return new ForkJoinCarExecutor(Runtime.getRuntime().availableProcessors());
+            case "virtual":
+                return new VirtualThreadCarExecutor();
+            default:
+                throw new IllegalArgumentException("Unknown car executor: " + name);
+        }
+    }
+}
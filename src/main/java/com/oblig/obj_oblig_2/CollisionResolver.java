@@ -0,0 +1,109 @@
+package com.oblig.obj_oblig_2;
+
+// Pushes overlapping cars apart.
+// Broad phase: sort-and-sweep on x, so only cars whose x ranges overlap are compared.
+// Narrow phase: squared distance check on those candidate pairs.
+public class CollisionResolver {
+    // Push cars apart more strongly
+    private static final double PUSH_STRENGTH = 2.0; // Was 0.5
+    // Speed the cars get after a collision, as a fraction of their original speed
+    private static final double SPEED_AFTER_COLLISION = 0.8;
+
+    private final double carSize;
+
+    // Slots sorted on x. Kept between ticks because cars barely move, so re-sorting is cheap
+    private int[] order = new int[64];
+    private int[] scratch = new int[64];
+    private int orderedCount = -1;
+    private long orderedVersion = -1;
+
+    public CollisionResolver(double carSize) {
+        this.carSize = carSize;
+    }
+
+    public void resolve(VehicleStore vehicles) {
+        int count = vehicles.size();
+        double[] xs = vehicles.x;
+        double[] ys = vehicles.y;
+
+        sortOnX(vehicles, count);
+
+        // Sweep: walk along x and only compare with cars that start less than one car size further on
+        for (int a = 0; a < count; a++) {
+            int i = order[a];
+            for (int b = a + 1; b < count; b++) {
+                int j = order[b];
+                if (xs[j] - xs[i] >= carSize) break;
+
+                // Narrow phase
+                double dx = xs[i] - xs[j];
+                double dy = ys[i] - ys[j];
+                if (Math.abs(dy) >= carSize) continue;
+                double lenSquared = dx*dx + dy*dy;
+
+                // If they're too close, gently push them apart. Most candidates aren't, so only they pay for the sqrt
+                if (lenSquared < carSize * carSize && lenSquared > 0) {
+                    double len = Math.sqrt(lenSquared);
+                    dx /= len;
+                    dy /= len;
+                    vehicles.push(i, dx * PUSH_STRENGTH, dy * PUSH_STRENGTH);
+                    vehicles.push(j, -dx * PUSH_STRENGTH, -dy * PUSH_STRENGTH);
+
+                    // Also reset both cars' speeds to avoid stuck situations
+                    vehicles.slowToFractionOfOriginal(i, SPEED_AFTER_COLLISION);
+                    vehicles.slowToFractionOfOriginal(j, SPEED_AFTER_COLLISION);
+                }
+            }
+        }
+    }
+
+    private void sortOnX(VehicleStore vehicles, int count) {
+        double[] xs = vehicles.x;
+        if (count != orderedCount || vehicles.getVersion() != orderedVersion) {
+            // Cars were added or removed, so slots have moved: start over from scratch
+            if (order.length < count) {
+                order = new int[Math.max(count, order.length * 2)];
+                scratch = new int[order.length];
+            }
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            mergeSort(xs, 0, count);
+            orderedCount = count;
+            orderedVersion = vehicles.getVersion();
+            return;
+        }
+
+        // Same cars as last tick, the order is almost right already: insertion sort
+        for (int a = 1; a < count; a++) {
+            int slot = order[a];
+            double x = xs[slot];
+            int b = a - 1;
+            while (b >= 0 && xs[order[b]] > x) {
+                order[b + 1] = order[b];
+                b--;
+            }
+            order[b + 1] = slot;
+        }
+    }
+
+    // Merge sort of order[from..to) on x, using the scratch buffer instead of allocating
+    private void mergeSort(double[] xs, int from, int to) {
+        if (to - from < 2) return;
+        int middle = (from + to) >>> 1;
+        mergeSort(xs, from, middle);
+        mergeSort(xs, middle, to);
+        if (xs[order[middle - 1]] <= xs[order[middle]]) return;
+
+        System.arraycopy(order, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int k = from; k < to; k++) {
+            if (right >= to || (left < middle && xs[scratch[left]] <= xs[scratch[right]])) {
+                order[k] = scratch[left++];
+            } else {
+                order[k] = scratch[right++];
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.oblig.obj_oblig_2;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+// Versioned binary form of a map: the config values, intersections, roads, the road graph and
+// the contraction hierarchy for routing. JSON stays the source format, "compiling" a map writes
+// this file once. Loading it maps the file and reads the tables straight out of the mapping,
+// so nothing is parsed or derived at startup.
+//
+// Layout, little-endian:
+//   int magic "TMAP", int version
+//   application, car, trafficLight, map and simulation values in record order (title as length + UTF-8)
+//   int intersections, int horizontal roads, int vertical roads, int lanes
+//   int hierarchy nodes, int forward edges, int backward edges (version 2)
+//   padding to a multiple of 8
+//   double x[intersections], double y[intersections], double horizontalY[], double verticalX[]
+//   int horizontalRoadOf[intersections], int verticalRoadOf[intersections],
+//   int roadStart[roads + 1], int roadIntersections[2 * intersections]
+//   version 2: padding to a multiple of 8
+//   double forwardWeight[forward edges], double backwardWeight[backward edges]
+//   int forwardStart[nodes + 1], int forwardTo[forward edges], int forwardMiddle[forward edges]
+//   int backwardStart[nodes + 1], int backwardFrom[backward edges], int backwardMiddle[backward edges]
+//
+// Version 1 files, without the hierarchy, can still be read.
+// Usage: CompiledMap <map.json> <map.tmap>
+public final class CompiledMap {
+    public static final int MAGIC = 'T' | 'M' << 8 | 'A' << 16 | 'P' << 24;
+    public static final int VERSION = 2;
+
+    private CompiledMap() {
+    }
+
+    // True if the file starts with the compiled map magic number
+    public static boolean isCompiled(File file) throws IOException {
+        if (file.length() < 4) return false;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(head, 0);
+            return head.getInt(0) == MAGIC;
+        }
+    }
+
+    public static void write(SimConfig config, File file) throws IOException {
+        MapConfig map = config.map();
+        IntersectionTable intersections = map.intersections();
+        RoadTable roads = map.roads();
+        RoadGraph graph = map.graph();
+        int count = intersections.size();
+        int roadCount = roads.size();
+        byte[] title = config.application().title().getBytes(StandardCharsets.UTF_8);
+        // Contracting is the slow part of compiling, that is why it is done here and not at load
+        ContractionHierarchy hierarchy = map.hierarchy() != null
+                ? map.hierarchy() : ContractionHierarchy.build(new RoadNetwork(map));
+        int nodes = hierarchy.nodeCount();
+        int forwardEdges = hierarchy.forwardEdgeCount();
+        int backwardEdges = hierarchy.backwardEdgeCount();
+
+        // The header is small, build it first so its size is known
+        ByteBuffer header = ByteBuffer.allocate(256 + title.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION);
+
+        ApplicationConfig application = config.application();
+        header.putInt(application.windowWidth()).putInt(application.windowHeight());
+        header.putInt(title.length).put(title);
+
+        CarConfig car = config.car();
+        header.putInt(car.size()).putInt(car.turningPathPoints());
+        header.putDouble(car.turningSpeedFactor()).putDouble(car.straightThroughProbability());
+
+        TrafficLightConfig trafficLight = config.trafficLight();
+        header.putInt(trafficLight.size()).putInt(trafficLight.offset()).putInt(trafficLight.detectionRadius());
+
+        header.putInt(map.roadWidth()).putInt(map.intersectionRadius());
+
+        SimulationConfig simulation = config.simulation();
+        header.putInt(simulation.trafficLightUpdateInterval()).putDouble(simulation.carSpeed());
+        header.putInt(simulation.carsPerRoad()).putInt(simulation.maxCars());
+        header.putDouble(simulation.minSpawnInterval()).putDouble(simulation.maxSpawnInterval());
+        header.putLong(simulation.minGreenLightDuration()).putLong(simulation.maxGreenLightDuration());
+        header.putInt(simulation.carsPerTimeUnit());
+
+        header.putInt(count).putInt(roads.horizontalCount()).putInt(roads.verticalCount()).putInt(graph.laneCount());
+        header.putInt(nodes).putInt(forwardEdges).putInt(backwardEdges);
+        int headerBytes = align(header.position());
+        header.flip();
+
+        long graphBytes = 8L * (2L * count + roadCount)
+                + 4L * (2L * count + roadCount + 1 + 2L * count);
+        long hierarchyStart = alignLong(headerBytes + graphBytes);
+        long size = hierarchyStart
+                + 8L * (forwardEdges + backwardEdges)
+                + 4L * (2L * (nodes + 1) + 2L * forwardEdges + 2L * backwardEdges);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Map too large to compile: " + size + " bytes");
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(header);
+            buffer.position(headerBytes);
+
+            for (int i = 0; i < count; i++) buffer.putDouble(intersections.getX(i));
+            for (int i = 0; i < count; i++) buffer.putDouble(intersections.getY(i));
+            for (int i = 0; i < roads.horizontalCount(); i++) buffer.putDouble(roads.getHorizontalY(i));
+            for (int i = 0; i < roads.verticalCount(); i++) buffer.putDouble(roads.getVerticalX(i));
+
+            for (int i = 0; i < count; i++) buffer.putInt(graph.horizontalRoadOf(i));
+            for (int i = 0; i < count; i++) buffer.putInt(graph.verticalRoadOf(i));
+            int start = 0;
+            for (int road = 0; road < roadCount; road++) {
+                buffer.putInt(start);
+                start += graph.intersectionsOnRoad(road);
+            }
+            buffer.putInt(start);
+            for (int road = 0; road < roadCount; road++) {
+                for (int k = 0; k < graph.intersectionsOnRoad(road); k++) {
+                    buffer.putInt(graph.intersectionOnRoad(road, k));
+                }
+            }
+
+            buffer.position((int) hierarchyStart);
+            for (int e = 0; e < forwardEdges; e++) buffer.putDouble(hierarchy.forwardWeight(e));
+            for (int e = 0; e < backwardEdges; e++) buffer.putDouble(hierarchy.backwardWeight(e));
+            for (int node = 0; node <= nodes; node++) buffer.putInt(hierarchy.forwardStart(node));
+            for (int e = 0; e < forwardEdges; e++) buffer.putInt(hierarchy.forwardTo(e));
+            for (int e = 0; e < forwardEdges; e++) buffer.putInt(hierarchy.forwardMiddle(e));
+            for (int node = 0; node <= nodes; node++) buffer.putInt(hierarchy.backwardStart(node));
+            for (int e = 0; e < backwardEdges; e++) buffer.putInt(hierarchy.backwardFrom(e));
+            for (int e = 0; e < backwardEdges; e++) buffer.putInt(hierarchy.backwardMiddle(e));
+            buffer.force();
+        }
+    }
+
+    // Maps the file and wraps the tables around views of the mapping.
+    // The mapping stays valid after the channel is closed, as long as the tables are reachable
+    public static SimConfig read(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a compiled map: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Compiled map " + file + " has version " + version + ", expected " + VERSION
+                    + ". Compile it again from the JSON map");
+        }
+
+        int windowWidth = buffer.getInt();
+        int windowHeight = buffer.getInt();
+        byte[] title = new byte[buffer.getInt()];
+        buffer.get(title);
+        ApplicationConfig application = new ApplicationConfig(windowWidth, windowHeight,
+                new String(title, StandardCharsets.UTF_8));
+
+        CarConfig car = new CarConfig(buffer.getInt(), buffer.getInt(), buffer.getDouble(), buffer.getDouble());
+        TrafficLightConfig trafficLight = new TrafficLightConfig(buffer.getInt(), buffer.getInt(), buffer.getInt());
+        int roadWidth = buffer.getInt();
+        int intersectionRadius = buffer.getInt();
+        SimulationConfig simulation = new SimulationConfig(buffer.getInt(), buffer.getDouble(), buffer.getInt(),
+                buffer.getInt(), buffer.getDouble(), buffer.getDouble(), buffer.getLong(), buffer.getLong(),
+                buffer.getInt());
+
+        int count = buffer.getInt();
+        int horizontal = buffer.getInt();
+        int vertical = buffer.getInt();
+        int lanes = buffer.getInt();
+        int nodes = version >= 2 ? buffer.getInt() : 0;
+        int forwardEdges = version >= 2 ? buffer.getInt() : 0;
+        int backwardEdges = version >= 2 ? buffer.getInt() : 0;
+        int roadCount = horizontal + vertical;
+        if (lanes != roadCount * 2) {
+            throw new IOException("Compiled map " + file + " is damaged: " + lanes + " lanes for " + roadCount + " roads");
+        }
+        buffer.position(align(buffer.position()));
+
+        DoubleBuffer xs = doubles(buffer, count);
+        DoubleBuffer ys = doubles(buffer, count);
+        DoubleBuffer horizontalY = doubles(buffer, horizontal);
+        DoubleBuffer verticalX = doubles(buffer, vertical);
+        IntBuffer horizontalRoadOf = ints(buffer, count);
+        IntBuffer verticalRoadOf = ints(buffer, count);
+        IntBuffer roadStart = ints(buffer, roadCount + 1);
+        IntBuffer roadIntersections = ints(buffer, count * 2);
+
+        ContractionHierarchy hierarchy = null;
+        if (nodes > 0) {
+            buffer.position(align(buffer.position()));
+            DoubleBuffer forwardWeight = doubles(buffer, forwardEdges);
+            DoubleBuffer backwardWeight = doubles(buffer, backwardEdges);
+            IntBuffer forwardStart = ints(buffer, nodes + 1);
+            IntBuffer forwardTo = ints(buffer, forwardEdges);
+            IntBuffer forwardMiddle = ints(buffer, forwardEdges);
+            IntBuffer backwardStart = ints(buffer, nodes + 1);
+            IntBuffer backwardFrom = ints(buffer, backwardEdges);
+            IntBuffer backwardMiddle = ints(buffer, backwardEdges);
+            hierarchy = new ContractionHierarchy(nodes, forwardStart, forwardTo, forwardMiddle, forwardWeight,
+                    backwardStart, backwardFrom, backwardMiddle, backwardWeight);
+        }
+
+        MapConfig map = new MapConfig(
+                new IntersectionTable(xs, ys, count),
+                new RoadTable(horizontalY, verticalX),
+                new RoadGraph(horizontal, horizontalRoadOf, verticalRoadOf, roadStart, roadIntersections),
+                hierarchy, roadWidth, intersectionRadius);
+        return new SimConfig(application, car, trafficLight, map, simulation);
+    }
+
+    // A view of the next count doubles, moving the buffer past them
+    private static DoubleBuffer doubles(ByteBuffer buffer, int count) {
+        DoubleBuffer view = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        view.limit(count);
+        buffer.position(buffer.position() + count * 8);
+        return view.slice();
+    }
+
+    private static IntBuffer ints(ByteBuffer buffer, int count) {
+        IntBuffer view = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        view.limit(count);
+        buffer.position(buffer.position() + count * 4);
+        return view.slice();
+    }
+
+    private static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+
+    private static long alignLong(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CompiledMap <map.json> <map.tmap>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        ConfigLoader.initialize(args[0]);
+        SimConfig config = ConfigLoader.getInstance().getConfig();
+        File out = new File(args[1]);
+        write(config, out);
+        System.out.println("Compiled " + args[0] + " to " + args[1] + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms: "
+                + config.map().intersections().size() + " intersections, "
+                + config.map().roads().size() + " roads, "
+                + out.length() + " bytes");
+        SimConfig compiled = read(out);
+        System.out.println("Routing hierarchy: " + compiled.map().hierarchy().nodeCount() + " links, "
+                + compiled.map().hierarchy().forwardEdgeCount() + " upward and "
+                + compiled.map().hierarchy().backwardEdgeCount() + " downward edges");
+    }
+}
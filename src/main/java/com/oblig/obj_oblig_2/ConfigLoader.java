@@ -1,122 +1,280 @@
 package com.oblig.obj_oblig_2;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+// Loads the map file once into an immutable SimConfig.
+// The getters only read record fields, so they are cheap enough for the hot paths.
 public class ConfigLoader {
-    private static ConfigLoader instance;
-    private JsonNode config;
-    private double currentCarSpeed = 0;
+    // Report loading progress every this many intersections
+    private static final int PROGRESS_INTERVAL = 1 << 14;
 
-    private ConfigLoader(String configFile) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        config = mapper.readTree(new File(configFile));
+    // Volatile so a loader set up on one thread is seen fully built on every other thread
+    private static volatile ConfigLoader instance;
+    private final SimConfig config;
+    // Changed at runtime from the speed slider, not part of the map file
+    private volatile double currentCarSpeed = 0;
+
+    // Takes a JSON map or one compiled by CompiledMap, told apart by the first bytes
+    private ConfigLoader(String configFile, MapLoadProgress progress) throws IOException {
+        File file = new File(configFile);
+        if (CompiledMap.isCompiled(file)) {
+            config = CompiledMap.read(file);
+            progress.update(file.length(), file.length(), config.map().intersections().size());
+        } else {
+            config = read(file, progress);
+        }
     }
 
     public static ConfigLoader getInstance() {
-        if (instance == null) {
-            try {
-                instance = new ConfigLoader("config/default-map.json");
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to load configuration", e);
+        ConfigLoader loader = instance;
+        if (loader == null) {
+            synchronized (ConfigLoader.class) {
+                loader = instance;
+                if (loader == null) {
+                    try {
+                        loader = new ConfigLoader("config/default-map.json", MapLoadProgress.NONE);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed to load configuration", e);
+                    }
+                    instance = loader;
+                }
             }
         }
-        return instance;
+        return loader;
     }
 
     public static void initialize(String configFile) throws IOException {
-        instance = new ConfigLoader(configFile);
+        initialize(configFile, MapLoadProgress.NONE);
+    }
+
+    public static void initialize(String configFile, MapLoadProgress progress) throws IOException {
+        instance = new ConfigLoader(configFile, progress);
+    }
+
+    // The parsed map file
+    public SimConfig getConfig() {
+        return config;
+    }
+
+    // Streams through the file. The small sections are read as trees, but the intersection list
+    // goes straight into primitive arrays, so a city-sized map never exists as a JsonNode tree
+    private static SimConfig read(File file, MapLoadProgress progress) throws IOException {
+        long totalBytes = file.length();
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode application = MissingNode.getInstance();
+        JsonNode car = MissingNode.getInstance();
+        JsonNode trafficLight = MissingNode.getInstance();
+        JsonNode simulation = MissingNode.getInstance();
+        // Everything in the map section except the intersections
+        ObjectNode map = mapper.createObjectNode();
+        IntersectionTable intersections = new IntersectionTable(new double[0], new double[0]);
+
+        try (JsonParser parser = mapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Map file must contain a JSON object: " + file);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String section = parser.getCurrentName();
+                parser.nextToken();
+                switch (section) {
+                    case "application": application = parser.readValueAsTree(); break;
+                    case "car": car = parser.readValueAsTree(); break;
+                    case "trafficLight": trafficLight = parser.readValueAsTree(); break;
+                    case "simulation": simulation = parser.readValueAsTree(); break;
+                    case "map":
+                        if (parser.currentToken() != JsonToken.START_OBJECT) {
+                            parser.skipChildren();
+                            break;
+                        }
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String field = parser.getCurrentName();
+                            parser.nextToken();
+                            if (field.equals("intersections")) {
+                                intersections = readIntersections(parser, totalBytes, progress);
+                            } else {
+                                map.set(field, parser.readValueAsTree());
+                            }
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        progress.update(totalBytes, totalBytes, intersections.size());
+        return build(application, car, trafficLight, map, simulation, intersections);
+    }
+
+    // Reads [{"x": .., "y": ..}, ...] into arrays that grow by half each time they fill up
+    private static IntersectionTable readIntersections(JsonParser parser, long totalBytes, MapLoadProgress progress) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return new IntersectionTable(new double[0], new double[0]);
+        }
+        double[] xs = new double[1024];
+        double[] ys = new double[1024];
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+            double x = 0;
+            double y = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (field.equals("x")) {
+                    x = parser.getValueAsDouble();
+                } else if (field.equals("y")) {
+                    y = parser.getValueAsDouble();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (count == xs.length) {
+                int capacity = count + (count >> 1);
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+            }
+            xs[count] = x;
+            ys[count] = y;
+            count++;
+            if (count % PROGRESS_INTERVAL == 0) {
+                progress.update(parser.getCurrentLocation().getByteOffset(), totalBytes, count);
+            }
+        }
+        if (token != JsonToken.END_ARRAY) {
+            throw new IOException("Expected an intersection object at " + parser.getCurrentLocation());
+        }
+        return new IntersectionTable(xs, ys, count);
+    }
+
+    // Every value with the same defaults the getters used to have
+    private static SimConfig build(JsonNode application, JsonNode car, JsonNode trafficLight, JsonNode map,
+                                   JsonNode simulation, IntersectionTable intersections) {
+        RoadTable roads = RoadTable.of(intersections);
+        return new SimConfig(
+                new ApplicationConfig(
+                        application.path("windowWidth").asInt(1200),
+                        application.path("windowHeight").asInt(800),
+                        application.path("title").asText("Traffic Simulation")),
+                new CarConfig(
+                        car.path("size").asInt(10),
+                        car.path("turningPathPoints").asInt(30), // Increased from 20 to 30 for smoother curves
+                        car.path("turningSpeedFactor").asDouble(0.6), // Reduced from 0.8 to 0.6 for smoother turns
+                        car.path("straightThroughProbability").asDouble(0.6)),
+                new TrafficLightConfig(
+                        trafficLight.path("size").asInt(15),
+                        trafficLight.path("offset").asInt(25),
+                        trafficLight.path("detectionRadius").asInt(50)),
+                new MapConfig(
+                        intersections,
+                        roads,
+                        RoadGraph.of(intersections, roads),
+                        null,
+                        map.path("roadWidth").asInt(40),
+                        map.path("intersectionRadius").asInt(30)),
+                new SimulationConfig(
+                        simulation.path("trafficLightUpdateInterval").asInt(500),
+                        simulation.path("carSpeed").asDouble(2.0),
+                        simulation.path("carsPerRoad").asInt(2),
+                        simulation.path("maxCars").asInt(50), // Default maximum of 50 cars
+                        simulation.path("minSpawnInterval").asDouble(0.8),
+                        simulation.path("maxSpawnInterval").asDouble(3.3),
+                        simulation.path("minGreenLightDuration").asLong(3000), // Default 3 seconds
+                        simulation.path("maxGreenLightDuration").asLong(15000), // Default 15 seconds
+                        simulation.path("carsPerTimeUnit").asInt(3)));
     }
 
     // Application config
     public int getWindowWidth() {
-        return config.path("application").path("windowWidth").asInt(1200);
+        return config.application().windowWidth();
     }
 
     public int getWindowHeight() {
-        return config.path("application").path("windowHeight").asInt(800);
+        return config.application().windowHeight();
     }
 
     // Car config
     public int getCarSize() {
-        return config.path("car").path("size").asInt(10);
+        return config.car().size();
     }
-    
+
     public double getMinCarDistance() {
-        // Default is 2 car lengths
-        return getCarSize() * 2;
+        return config.car().minCarDistance();
     }
 
     // Turning parameters
     public int getTurningPathPoints() {
-        return config.path("car").path("turningPathPoints").asInt(30); // Increased from 20 to 30 for smoother curves
+        return config.car().turningPathPoints();
     }
-    
+
     public double getTurningSpeed() {
-        double baseSpeed = getCarSpeed();
-        double turningFactor = config.path("car").path("turningSpeedFactor").asDouble(0.6);
-        return baseSpeed * turningFactor; // Reduced from 0.8 to 0.6 for smoother turns
+        return getCarSpeed() * config.car().turningSpeedFactor();
     }
 
 
     public double getStraightThroughProbability() {
-        return config.path("car").path("straightThroughProbability").asDouble(0.6);
+        return config.car().straightThroughProbability();
     }
 
     // TrafficLight config
     public int getTrafficLightSize() {
-        return config.path("trafficLight").path("size").asInt(15);
+        return config.trafficLight().size();
     }
 
     public int getTrafficLightOffset() {
-        return config.path("trafficLight").path("offset").asInt(25);
+        return config.trafficLight().offset();
     }
 
     public int getTrafficLightDetectionRadius() {
-        return config.path("trafficLight").path("detectionRadius").asInt(50);
+        return config.trafficLight().detectionRadius();
     }
 
     // Map config
     public List<Position> getIntersectionPositions() {
-        List<Position> positions = new ArrayList<>();
-        JsonNode intersections = config.path("map").path("intersections");
-
-        for (JsonNode intersection : intersections) {
-            double x = intersection.path("x").asDouble();
-            double y = intersection.path("y").asDouble();
-            positions.add(new Position(x, y));
-        }
-
-        return positions;
+        return config.map().intersections().toPositions();
     }
 
     public int getRoadWidth() {
-        return config.path("map").path("roadWidth").asInt(40);
+        return config.map().roadWidth();
     }
-    
+
     // Add intersection radius parameter (for turning calculations)
     public int getIntersectionRadius() {
-        return config.path("map").path("intersectionRadius").asInt(30);
+        return config.map().intersectionRadius();
     }
 
     // Simulation config
     public int getTrafficLightUpdateInterval() {
-        return config.path("simulation").path("trafficLightUpdateInterval").asInt(500);
+        return config.simulation().trafficLightUpdateInterval();
     }
-    
+
     public double getCarSpeed() {
-        return config.path("simulation").path("carSpeed").asDouble(2.0);
+        return config.simulation().carSpeed();
     }
-    
+
     public int getCarsPerRoad() {
-        return config.path("simulation").path("carsPerRoad").asInt(2);
+        return config.simulation().carsPerRoad();
     }
     public int getMaxCars() {
-        return config.path("simulation").path("maxCars").asInt(50); // Default maximum of 50 cars
+        return config.simulation().maxCars();
+    }
+
+    // Seconds between automatic spawns, the engine picks a random interval in this range
+    public double getMinSpawnInterval() {
+        return config.simulation().minSpawnInterval();
+    }
+
+    public double getMaxSpawnInterval() {
+        return config.simulation().maxSpawnInterval();
     }
 
 
@@ -130,23 +288,15 @@ public class ConfigLoader {
         return currentCarSpeed != 0 ? currentCarSpeed : getCarSpeed();
     }
 
-    // Fix these methods to use the proper section structure
     public long getMinGreenLightDuration() {
-        return config.path("simulation").path("minGreenLightDuration").asLong(3000); // Default 3 seconds
+        return config.simulation().minGreenLightDuration();
     }
 
     public long getMaxGreenLightDuration() {
-        return config.path("simulation").path("maxGreenLightDuration").asLong(15000); // Default 15 seconds
+        return config.simulation().maxGreenLightDuration();
     }
 
     public int getCarsPerTimeUnit() {
-        return config.path("simulation").path("carsPerTimeUnit").asInt(3); // Default 5 cars per time unit
-    }
-
-    private int getConfigInt(String key, int defaultValue) {
-        if (config.has(key)) {
-            return config.path(key).asInt(defaultValue);
-        }
-        return defaultValue;
+        return config.simulation().carsPerTimeUnit();
     }
 }
@@ -0,0 +1,361 @@
+package com.oblig.obj_oblig_2;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+// Contraction hierarchy over the links of a road network, for shortest routes faster than A*.
+// The nodes are links and the edges are the turns between them, weighted by the length of the
+// link turned into, the same costs AStarRouter uses. Building it contracts the nodes one at a
+// time, least important first, adding a shortcut edge wherever a shortest path went through the
+// contracted node. What is kept are the "upward" edges of every node, towards nodes contracted
+// later: the forward ones leave the node, the backward ones arrive at it. A query only ever
+// follows upward edges from both ends, see ContractionHierarchyRouter.
+//
+// A shortcut remembers the node it skips, its middle. An edge with middle NONE is a real turn.
+// Like the other map tables it reads through buffers, so CompiledMap can store it.
+public final class ContractionHierarchy {
+    public static final int NONE = -1;
+
+    // Witness searches stop after settling this many nodes, an unfinished search only costs an extra shortcut.
+    // Guessing the priority of a node can be rougher than actually contracting it
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    private static final int ESTIMATE_SETTLE_LIMIT = 60;
+
+    private final int nodes;
+    private final IntBuffer forwardStart;
+    private final IntBuffer forwardTo;
+    private final IntBuffer forwardMiddle;
+    private final DoubleBuffer forwardWeight;
+    private final IntBuffer backwardStart;
+    private final IntBuffer backwardFrom;
+    private final IntBuffer backwardMiddle;
+    private final DoubleBuffer backwardWeight;
+
+    ContractionHierarchy(int nodes, IntBuffer forwardStart, IntBuffer forwardTo, IntBuffer forwardMiddle,
+                         DoubleBuffer forwardWeight, IntBuffer backwardStart, IntBuffer backwardFrom,
+                         IntBuffer backwardMiddle, DoubleBuffer backwardWeight) {
+        this.nodes = nodes;
+        this.forwardStart = forwardStart;
+        this.forwardTo = forwardTo;
+        this.forwardMiddle = forwardMiddle;
+        this.forwardWeight = forwardWeight;
+        this.backwardStart = backwardStart;
+        this.backwardFrom = backwardFrom;
+        this.backwardMiddle = backwardMiddle;
+        this.backwardWeight = backwardWeight;
+    }
+
+    public int nodeCount() {
+        return nodes;
+    }
+
+    public int forwardEdgeCount() {
+        return forwardTo.limit();
+    }
+
+    public int backwardEdgeCount() {
+        return backwardFrom.limit();
+    }
+
+    // Upward edges leaving a node are forwardStart(node) .. forwardStart(node + 1)
+    public int forwardStart(int node) {
+        return forwardStart.get(node);
+    }
+
+    public int forwardTo(int edge) {
+        return forwardTo.get(edge);
+    }
+
+    public int forwardMiddle(int edge) {
+        return forwardMiddle.get(edge);
+    }
+
+    public double forwardWeight(int edge) {
+        return forwardWeight.get(edge);
+    }
+
+    // Upward edges arriving at a node are backwardStart(node) .. backwardStart(node + 1)
+    public int backwardStart(int node) {
+        return backwardStart.get(node);
+    }
+
+    public int backwardFrom(int edge) {
+        return backwardFrom.get(edge);
+    }
+
+    public int backwardMiddle(int edge) {
+        return backwardMiddle.get(edge);
+    }
+
+    public double backwardWeight(int edge) {
+        return backwardWeight.get(edge);
+    }
+
+    public static ContractionHierarchy build(RoadNetwork network) {
+        return new Builder(network).build();
+    }
+
+    // The graph while it is being contracted, with an edge list per node in each direction
+    private static final class Builder {
+        private static final CarDirection[] DIRECTIONS = CarDirection.values();
+
+        private final int nodes;
+        private final EdgeList[] out;
+        private final EdgeList[] in;
+        private final boolean[] contracted;
+        // Hierarchy level, spreads the contraction evenly over the map
+        private final int[] level;
+        // Latest priority of every node, older entries in the queue are skipped
+        private final double[] priority;
+
+        // Witness search state, reused with a generation number
+        private final double[] distance;
+        private final int[] seen;
+        private int generation;
+        private final LinkHeap heap = new LinkHeap(64);
+        // Real turns the shortcuts found by the last call to shortcuts() stand for
+        private int shortcutHops;
+
+        // Upward edges as they are found, turned into the compressed arrays at the end
+        private final EdgeList[] upOut;
+        private final EdgeList[] upIn;
+
+        Builder(RoadNetwork network) {
+            nodes = network.linkCount();
+            out = new EdgeList[nodes];
+            in = new EdgeList[nodes];
+            upOut = new EdgeList[nodes];
+            upIn = new EdgeList[nodes];
+            for (int node = 0; node < nodes; node++) {
+                out[node] = new EdgeList();
+                in[node] = new EdgeList();
+            }
+            for (int link = 0; link < nodes; link++) {
+                for (CarDirection direction : DIRECTIONS) {
+                    int next = network.nextLink(link, direction);
+                    if (next == RoadNetwork.NONE) continue;
+                    double weight = network.linkLength(next);
+                    out[link].put(next, weight, NONE, 1);
+                    in[next].put(link, weight, NONE, 1);
+                }
+            }
+            contracted = new boolean[nodes];
+            level = new int[nodes];
+            priority = new double[nodes];
+            distance = new double[nodes];
+            seen = new int[nodes];
+        }
+
+        ContractionHierarchy build() {
+            LinkHeap order = new LinkHeap(nodes);
+            for (int node = 0; node < nodes; node++) {
+                priority[node] = priority(node);
+                order.push(node, priority[node]);
+            }
+            while (!order.isEmpty()) {
+                double queued = order.peekPriority();
+                int node = order.pop();
+                if (contracted[node] || queued != priority[node]) continue;
+                // Contracting other nodes can still have changed it, check before contracting
+                double current = priority(node);
+                if (current > queued && !order.isEmpty() && current > order.peekPriority()) {
+                    priority[node] = current;
+                    order.push(node, current);
+                    continue;
+                }
+                contract(node);
+            }
+            return compress();
+        }
+
+        // Shortcuts added per edge removed, and real turns they stand for per real turn removed.
+        // Both keep the upward edges few and short, the level keeps the hierarchy flat.
+        // A deleted neighbours term on top made the hierarchy denser on grids, so there is none
+        private double priority(int node) {
+            EdgeList incoming = in[node];
+            EdgeList outgoing = out[node];
+            int removed = incoming.size + outgoing.size;
+            int removedHops = incoming.hopSum() + outgoing.hopSum();
+            int added = shortcuts(node, false);
+            return 2.0 * added / Math.max(1, removed)
+                    + (double) shortcutHops / Math.max(1, removedHops)
+                    + level[node];
+        }
+
+        private void contract(int node) {
+            shortcuts(node, true);
+            contracted[node] = true;
+            // Every neighbour still in the graph is contracted later, so these edges point upward.
+            // The remaining graph forgets the node, keeping the edge lists short
+            EdgeList outgoing = out[node];
+            EdgeList incoming = in[node];
+            upOut[node] = outgoing;
+            upIn[node] = incoming;
+            out[node] = null;
+            in[node] = null;
+            for (int i = 0; i < outgoing.size; i++) {
+                in[outgoing.node[i]].remove(node);
+            }
+            for (int i = 0; i < incoming.size; i++) {
+                out[incoming.node[i]].remove(node);
+            }
+            for (int i = 0; i < outgoing.size; i++) {
+                touch(outgoing.node[i], node);
+            }
+            for (int i = 0; i < incoming.size; i++) {
+                touch(incoming.node[i], node);
+            }
+        }
+
+        // A neighbour of a contracted node lost an edge and maybe gained shortcuts,
+        // its priority is checked again when it comes up in the queue
+        private void touch(int neighbour, int node) {
+            level[neighbour] = Math.max(level[neighbour], level[node] + 1);
+        }
+
+        // Shortcuts needed to take the node out, added to the graph when add is set
+        private int shortcuts(int node, boolean add) {
+            EdgeList incoming = in[node];
+            EdgeList outgoing = out[node];
+            double maxOut = 0;
+            for (int j = 0; j < outgoing.size; j++) {
+                maxOut = Math.max(maxOut, outgoing.weight[j]);
+            }
+            int count = 0;
+            shortcutHops = 0;
+            for (int i = 0; i < incoming.size; i++) {
+                int from = incoming.node[i];
+                double toNode = incoming.weight[i];
+                witnessSearch(from, node, toNode + maxOut, add ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+                for (int j = 0; j < outgoing.size; j++) {
+                    int to = outgoing.node[j];
+                    if (to == from) continue;
+                    double via = toNode + outgoing.weight[j];
+                    if (seen[to] == generation && distance[to] <= via) continue;
+                    int hops = incoming.hops[i] + outgoing.hops[j];
+                    count++;
+                    shortcutHops += hops;
+                    if (add) {
+                        out[from].put(to, via, node, hops);
+                        in[to].put(from, via, node, hops);
+                    }
+                }
+            }
+            return count;
+        }
+
+        // Dijkstra from a node over the remaining graph without the node being contracted
+        private void witnessSearch(int from, int skip, double limit, int settleLimit) {
+            generation++;
+            heap.clear();
+            distance[from] = 0;
+            seen[from] = generation;
+            heap.push(from, 0);
+            int settled = 0;
+            while (!heap.isEmpty() && settled < settleLimit) {
+                double d = heap.peekPriority();
+                int node = heap.pop();
+                if (d > distance[node]) continue;
+                if (d > limit) break;
+                settled++;
+                EdgeList edges = out[node];
+                for (int i = 0; i < edges.size; i++) {
+                    int next = edges.node[i];
+                    if (next == skip) continue;
+                    double nextDistance = d + edges.weight[i];
+                    if (seen[next] != generation || nextDistance < distance[next]) {
+                        seen[next] = generation;
+                        distance[next] = nextDistance;
+                        heap.push(next, nextDistance);
+                    }
+                }
+            }
+        }
+
+        private ContractionHierarchy compress() {
+            int[] forwardStart = new int[nodes + 1];
+            int[] backwardStart = new int[nodes + 1];
+            for (int node = 0; node < nodes; node++) {
+                forwardStart[node + 1] = forwardStart[node] + upOut[node].size;
+                backwardStart[node + 1] = backwardStart[node] + upIn[node].size;
+            }
+            int[] forwardTo = new int[forwardStart[nodes]];
+            int[] forwardMiddle = new int[forwardTo.length];
+            double[] forwardWeight = new double[forwardTo.length];
+            int[] backwardFrom = new int[backwardStart[nodes]];
+            int[] backwardMiddle = new int[backwardFrom.length];
+            double[] backwardWeight = new double[backwardFrom.length];
+            for (int node = 0; node < nodes; node++) {
+                EdgeList up = upOut[node];
+                System.arraycopy(up.node, 0, forwardTo, forwardStart[node], up.size);
+                System.arraycopy(up.middle, 0, forwardMiddle, forwardStart[node], up.size);
+                System.arraycopy(up.weight, 0, forwardWeight, forwardStart[node], up.size);
+                EdgeList down = upIn[node];
+                System.arraycopy(down.node, 0, backwardFrom, backwardStart[node], down.size);
+                System.arraycopy(down.middle, 0, backwardMiddle, backwardStart[node], down.size);
+                System.arraycopy(down.weight, 0, backwardWeight, backwardStart[node], down.size);
+            }
+            return new ContractionHierarchy(nodes,
+                    IntBuffer.wrap(forwardStart), IntBuffer.wrap(forwardTo), IntBuffer.wrap(forwardMiddle),
+                    DoubleBuffer.wrap(forwardWeight),
+                    IntBuffer.wrap(backwardStart), IntBuffer.wrap(backwardFrom), IntBuffer.wrap(backwardMiddle),
+                    DoubleBuffer.wrap(backwardWeight));
+        }
+    }
+
+    // Edges to or from one node, at most one per neighbour, keeping the cheapest.
+    // Hops is how many real turns an edge stands for, 1 unless it is a shortcut
+    private static final class EdgeList {
+        int[] node = new int[4];
+        double[] weight = new double[4];
+        int[] middle = new int[4];
+        int[] hops = new int[4];
+        int size;
+
+        int hopSum() {
+            int sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += hops[i];
+            }
+            return sum;
+        }
+
+        void remove(int other) {
+            for (int i = 0; i < size; i++) {
+                if (node[i] == other) {
+                    size--;
+                    node[i] = node[size];
+                    weight[i] = weight[size];
+                    middle[i] = middle[size];
+                    hops[i] = hops[size];
+                    return;
+                }
+            }
+        }
+
+        void put(int other, double edgeWeight, int edgeMiddle, int edgeHops) {
+            for (int i = 0; i < size; i++) {
+                if (node[i] == other) {
+                    if (edgeWeight < weight[i]) {
+                        weight[i] = edgeWeight;
+                        middle[i] = edgeMiddle;
+                        hops[i] = edgeHops;
+                    }
+                    return;
+                }
+            }
+            if (size == node.length) {
+                node = Arrays.copyOf(node, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+                middle = Arrays.copyOf(middle, size * 2);
+                hops = Arrays.copyOf(hops, size * 2);
+            }
+            node[size] = other;
+            weight[size] = edgeWeight;
+            middle[size] = edgeMiddle;
+            hops[size] = edgeHops;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Where and when new cars come into the map, and where they are headed: an origin-destination
+// demand over the lanes of a road network. Every lane starts at the map edge, so every lane is an
+// entry, and its last link is an exit. Cars arrive at each entry as a Poisson process, either at a
+// constant rate or following a time-of-day curve with a morning and an evening peak.
+//
+// The arrivals are generated ahead of time, a window at a time, into one timeline sorted by time:
+// parallel primitive arrays of time, entry lane and exit lane. The engine only walks a cursor along
+// it, so the cost of spawning does not depend on how many cars are driving.
+public final class DemandModel {
+    // Arrivals generated in one go, in simulated seconds
+    public static final double WINDOW_SECONDS = 300;
+
+    // Time-of-day curve: mean of the unscaled curve over a day, 0.35 + (1.6 * 1.5 + 1.4 * 2) * sqrt(pi) / 24,
+    // and a little over the highest value it reaches, the rate arrivals are drawn at before thinning
+    private static final double MEAN_FACTOR = 0.35 + (1.6 * 1.5 + 1.4 * 2) * Math.sqrt(Math.PI) / 24;
+    private static final double PEAK_FACTOR = 1.05 * (0.35 + 1.6) / MEAN_FACTOR;
+
+    private final int lanes;
+    private final double carsPerSecond;
+    // Length of the simulated day for the time-of-day curve, 0 for a constant rate
+    private final double dayLengthSeconds;
+    private final Random random;
+
+    // Next arrival of every entry, merged into the timeline in time order
+    private final LinkHeap upcoming;
+    private double windowEnd;
+
+    private double[] times = new double[64];
+    private int[] entries = new int[64];
+    private int[] exits = new int[64];
+    private int size;
+    private int next;
+
+    private DemandModel(int lanes, double carsPerSecond, double dayLengthSeconds, long seed) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("No lanes for cars to arrive on");
+        }
+        if (!(carsPerSecond > 0)) {
+            throw new IllegalArgumentException("Bad arrival rate: " + carsPerSecond);
+        }
+        this.lanes = lanes;
+        this.carsPerSecond = carsPerSecond;
+        this.dayLengthSeconds = dayLengthSeconds;
+        this.random = new Random(seed);
+        this.upcoming = new LinkHeap(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            upcoming.push(lane, arrivalAfter(0));
+        }
+    }
+
+    // Arrivals at a constant rate, cars per second over the whole map
+    public static DemandModel poisson(RoadNetwork network, double carsPerSecond, long seed) {
+        return new DemandModel(network.laneCount(), carsPerSecond, 0, seed);
+    }
+
+    // Arrivals that follow the time of day, averaging about the given rate over a day.
+    // The run starts at midnight
+    public static DemandModel timeOfDay(RoadNetwork network, double carsPerSecond, double dayLengthSeconds, long seed) {
+        if (!(dayLengthSeconds > 0)) {
+            throw new IllegalArgumentException("Bad day length: " + dayLengthSeconds);
+        }
+        return new DemandModel(network.laneCount(), carsPerSecond, dayLengthSeconds, seed);
+    }
+
+    // Look up a demand model by the name used on the command line:
+    // "poisson", "daily" for a 24 hour day or "daily:<seconds>" for a shorter one
+    public static DemandModel forName(String name, RoadNetwork network, double carsPerSecond, long seed) {
+        if (name.startsWith("daily:")) {
+            return timeOfDay(network, carsPerSecond, Double.parseDouble(name.substring("daily:".length())), seed);
+        }
+        switch (name) {
+            case "poisson":
+                return poisson(network, carsPerSecond, seed);
+            case "daily":
+                return timeOfDay(network, carsPerSecond, 24 * 3600, seed);
+            default:
+                throw new IllegalArgumentException("Unknown demand model: " + name);
+        }
+    }
+
+    public double getCarsPerSecond() {
+        return carsPerSecond;
+    }
+
+    // Whether the next arrival is due by the time, in simulated seconds since the start
+    public boolean hasArrival(double time) {
+        while (next == size && windowEnd <= time) {
+            generateWindow();
+        }
+        return next < size && times[next] <= time;
+    }
+
+    // Entry and exit lane of the next arrival, check hasArrival first
+    public int entryLane() {
+        return entries[next];
+    }
+
+    public int exitLane() {
+        return exits[next];
+    }
+
+    public double arrivalTime() {
+        return times[next];
+    }
+
+    // Move on to the arrival after this one
+    public void advance() {
+        next++;
+    }
+
+    // Relative rate at a time of day, 1 on average. Quiet nights and peaks around 8:00 and 17:00
+    double rateFactor(double time) {
+        if (dayLengthSeconds == 0) return 1;
+        double hour = 24 * (time % dayLengthSeconds) / dayLengthSeconds;
+        double morning = (hour - 8) / 1.5;
+        double evening = (hour - 17) / 2;
+        return (0.35 + 1.6 * Math.exp(-morning * morning) + 1.4 * Math.exp(-evening * evening)) / MEAN_FACTOR;
+    }
+
+    // Next arrival at one entry after a time, by thinning a Poisson process at the peak rate
+    private double arrivalAfter(double time) {
+        double laneRate = carsPerSecond / lanes;
+        double peak = dayLengthSeconds == 0 ? 1 : PEAK_FACTOR;
+        double t = time;
+        do {
+            t -= Math.log(1 - random.nextDouble()) / (laneRate * peak);
+        } while (dayLengthSeconds != 0 && random.nextDouble() * peak > rateFactor(t));
+        return t;
+    }
+
+    // Replace the used-up timeline with the arrivals of the next window
+    private void generateWindow() {
+        size = 0;
+        next = 0;
+        windowEnd += WINDOW_SECONDS;
+        while (upcoming.peekPriority() < windowEnd) {
+            double time = upcoming.peekPriority();
+            int entry = upcoming.pop();
+            add(time, entry, random.nextInt(lanes));
+            upcoming.push(entry, arrivalAfter(time));
+        }
+    }
+
+    private void add(double time, int entry, int exit) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            entries = Arrays.copyOf(entries, size * 2);
+            exits = Arrays.copyOf(exits, size * 2);
+        }
+        times[size] = time;
+        entries[size] = entry;
+        exits[size] = exit;
+        size++;
+    }
+}
@@ -0,0 +1,62 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Steps cars on a fixed ForkJoin pool, splitting the car list into contiguous partitions
+public class ForkJoinCarExecutor implements CarExecutor {
+    // Below this many cars a partition is stepped directly instead of being split further
+    private static final int PARTITION_SIZE = 256;
+
+    private final ForkJoinPool pool;
+
+    public ForkJoinCarExecutor(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    @Override
+    public void step(List<Car> cars, double dt) {
+        if (cars.size() <= PARTITION_SIZE) {
+            // Not worth handing over to the pool
+            for (Car car : cars) {
+                car.step(dt);
+            }
+            return;
+        }
+        pool.invoke(new StepPartition(cars, 0, cars.size(), dt));
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static class StepPartition extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Car> cars;
+        private final int from;
+        private final int to;
+        private final double dt;
+
+        StepPartition(List<Car> cars, int from, int to, double dt) {
+            this.cars = cars;
+            this.from = from;
+            this.to = to;
+            this.dt = dt;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARTITION_SIZE) {
+                for (int i = from; i < to; i++) {
+                    cars.get(i).step(dt);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new StepPartition(cars, from, middle, dt), new StepPartition(cars, middle, to, dt));
+        }
+    }
+}
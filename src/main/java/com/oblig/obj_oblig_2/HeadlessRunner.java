@@ -0,0 +1,265 @@
+package com.oblig.obj_oblig_2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.Random;
+
+// Runs a map without JavaFX and prints a throughput report, for batch and nightly regression runs.
+//
+// Usage: HeadlessRunner <map.json> [--seconds N] [--tick S] [--executor single|forkjoin|virtual]
+//                       [--clock stepped|real|scaled:F] [--router astar|ch|none] [--seed N]
+//                       [--demand poisson|daily|daily:S] [--incidents N] [--width W] [--height H] [--verbose]
+public class HeadlessRunner {
+    // The window has 100 pixels of controls below the canvas
+    private static final int CONTROLS_HEIGHT = 100;
+
+    private String mapPath;
+    private double simulatedSeconds = 60;
+    private double tickSeconds = SimulationEngine.DEFAULT_TICK_SECONDS;
+    private String executorName = "single";
+    private String clockName = "stepped";
+    private String routerName = "astar";
+    private Long seed;
+    private String demandName = "poisson";
+    // Links closed a third into the run and reopened at two thirds
+    private int incidents;
+    private int linksClosed;
+    // Defaults to the canvas size the map's window settings give
+    private Double width;
+    private Double height;
+    private boolean verbose;
+    private double loadSeconds;
+    private double allocationPerTick;
+
+    public static void main(String[] args) {
+        HeadlessRunner runner = new HeadlessRunner();
+        try {
+            runner.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: HeadlessRunner <map.json> [--seconds N] [--tick S] [--executor single|forkjoin|virtual]"
+                    + " [--clock stepped|real|scaled:F] [--router astar|ch|none] [--seed N]"
+                    + " [--demand poisson|daily|daily:S] [--incidents N] [--width W] [--height H] [--verbose]");
+            System.exit(2);
+        }
+
+        try {
+            long loadStart = System.nanoTime();
+            ConfigLoader.initialize(runner.mapPath, new ProgressPrinter());
+            runner.loadSeconds = (System.nanoTime() - loadStart) / 1_000_000_000.0;
+        } catch (IOException e) {
+            System.err.println("Failed to load map: " + e.getMessage());
+            System.exit(1);
+        }
+
+        runner.run();
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--seconds": simulatedSeconds = Double.parseDouble(value(args, ++i, arg)); break;
+                case "--tick": tickSeconds = Double.parseDouble(value(args, ++i, arg)); break;
+                case "--executor": executorName = value(args, ++i, arg); break;
+                case "--clock": clockName = value(args, ++i, arg); break;
+                case "--router": routerName = value(args, ++i, arg); break;
+                case "--seed": seed = Long.parseLong(value(args, ++i, arg)); break;
+                case "--demand": demandName = value(args, ++i, arg); break;
+                case "--incidents": incidents = Integer.parseInt(value(args, ++i, arg)); break;
+                case "--width": width = Double.parseDouble(value(args, ++i, arg)); break;
+                case "--height": height = Double.parseDouble(value(args, ++i, arg)); break;
+                case "--verbose": verbose = true; break;
+                default:
+                    if (arg.startsWith("--") || mapPath != null) {
+                        throw new IllegalArgumentException("Unknown argument: " + arg);
+                    }
+                    mapPath = arg;
+            }
+        }
+        if (mapPath == null) {
+            throw new IllegalArgumentException("No map file given");
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    private void run() {
+        ConfigLoader config = ConfigLoader.getInstance();
+        if (width == null) {
+            width = (double) config.getWindowWidth();
+        }
+        if (height == null) {
+            height = (double) (config.getWindowHeight() - CONTROLS_HEIGHT);
+        }
+        long ticks = Math.round(simulatedSeconds / tickSeconds);
+        SimulationEngine engine = new SimulationEngine(width, height, tickSeconds,
+                CarExecutor.forName(executorName), SimClock.forName(clockName));
+        // Without --seed a run still gets one, printed in the report so it can be run again
+        if (seed == null) {
+            seed = System.nanoTime();
+        }
+        engine.setSeed(seed);
+        Simulation simulation = engine.getSimulation();
+        engine.setDemand(DemandModel.forName(demandName, simulation.getRoadNetwork(), engine.getMapArrivalRate(), seed));
+        if (routerName.equals("none")) {
+            simulation.setRouter(null);
+        } else {
+            simulation.setRouter(new CachingRouter(Router.forName(routerName, simulation.getRoadNetwork()),
+                    SimulationEngine.ROUTE_CACHE_SIZE, simulation.getRoadNetwork()));
+        }
+
+        // The cars and the engine log a lot, keep the report readable unless asked for it
+        PrintStream out = System.out;
+        if (!verbose) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        int[] closed = pickIncidentLinks(simulation.getRoadNetwork());
+        long[] tickNanos = new long[(int) ticks];
+        long start = System.nanoTime();
+        // Allocation is measured over the second half of the run, once the fleet is at its steady size
+        long steadyFrom = ticks / 2;
+        long steadyAllocated = 0;
+        try {
+            for (int i = 0; i < ticks; i++) {
+                if (i == steadyFrom) {
+                    steadyAllocated = allocatedBytes();
+                }
+                if (i == ticks / 3) {
+                    for (int link : closed) simulation.closeLink(link);
+                    linksClosed = simulation.getRoadNetwork().closedLinkCount();
+                } else if (i == 2 * ticks / 3) {
+                    for (int link : closed) simulation.reopenLink(link);
+                }
+                long tickStart = System.nanoTime();
+                engine.tick();
+                tickNanos[i] = System.nanoTime() - tickStart;
+            }
+            steadyAllocated = allocatedBytes() - steadyAllocated;
+        } finally {
+            System.setOut(out);
+            engine.shutdown();
+        }
+        long wallNanos = System.nanoTime() - start;
+        allocationPerTick = steadyAllocated / (double) Math.max(1, ticks - steadyFrom);
+
+        printReport(out, engine, tickNanos, wallNanos);
+    }
+
+    // Random links between two intersections, the same ones for the same seed
+    private int[] pickIncidentLinks(RoadNetwork network) {
+        if (incidents <= 0 || network == null) return new int[0];
+        Random random = new Random(seed);
+        int[] links = new int[incidents];
+        for (int i = 0; i < incidents; i++) {
+            int link;
+            do {
+                link = random.nextInt(network.linkCount());
+            } while (network.fromIntersection(link) == RoadNetwork.NONE || network.nextIntersection(link) == RoadNetwork.NONE);
+            links[i] = link;
+        }
+        return links;
+    }
+
+    private void printReport(PrintStream out, SimulationEngine engine, long[] tickNanos, long wallNanos) {
+        long[] sorted = tickNanos.clone();
+        Arrays.sort(sorted);
+        double totalMillis = 0;
+        for (long nanos : sorted) {
+            totalMillis += nanos / 1_000_000.0;
+        }
+        int count = sorted.length;
+        double meanMillis = count > 0 ? totalMillis / count : 0;
+        double p99Millis = count > 0 ? sorted[Math.min(count - 1, (int) Math.ceil(count * 0.99) - 1)] / 1_000_000.0 : 0;
+        double wallSeconds = wallNanos / 1_000_000_000.0;
+
+        line(out, "map", mapPath);
+        line(out, "executor", executorName);
+        line(out, "clock", clockName);
+        line(out, "router", routerName);
+        line(out, "demand", demandName);
+        line(out, "seed", seed);
+        line(out, "map load seconds", String.format("%.3f", loadSeconds));
+        line(out, "intersections", engine.getSimulation().getIntersections().size());
+        line(out, "roads", engine.getSimulation().getRoads().size());
+        line(out, "simulated seconds", String.format("%.1f", engine.getTickCount() * tickSeconds));
+        line(out, "wall seconds", String.format("%.3f", wallSeconds));
+        line(out, "ticks", engine.getTickCount());
+        line(out, "ticks/sec", String.format("%.1f", wallSeconds > 0 ? engine.getTickCount() / wallSeconds : 0));
+        line(out, "vehicles active", engine.getSimulation().getCars().size());
+        line(out, "vehicles completed", engine.getCompletedCars());
+        line(out, "arrivals", engine.getArrivals());
+        line(out, "arrivals blocked", engine.getArrivalsBlocked());
+        line(out, "tick mean ms", String.format("%.4f", meanMillis));
+        line(out, "tick p99 ms", String.format("%.4f", p99Millis));
+        if (engine.getSimulation().getRouter() instanceof CachingRouter) {
+            CachingRouter router = (CachingRouter) engine.getSimulation().getRouter();
+            line(out, "routes cached", router.size());
+            line(out, "route hit rate", String.format("%.3f", router.getHitRate()));
+            line(out, "route search us", String.format("%.2f", router.getMeanSearchMicros()));
+        }
+        if (incidents > 0) {
+            line(out, "links closed", linksClosed);
+            line(out, "routes invalidated", engine.getSimulation().getRoutesInvalidated());
+            line(out, "routes repaired", engine.getSimulation().getRoutesRepaired());
+        }
+        line(out, "alloc KB/tick", String.format("%.2f", allocationPerTick / 1024.0));
+        line(out, "vehicles pooled", engine.getSimulation().getVehiclePool().size());
+        line(out, "vehicles created", engine.getSimulation().getVehiclePool().getCreated());
+        line(out, "vehicles reused", engine.getSimulation().getVehiclePool().getReused());
+        line(out, "peak heap MB", String.format("%.1f", peakHeapBytes() / (1024.0 * 1024.0)));
+    }
+
+    // Prints loading progress to stderr in steps of ten percent
+    private static class ProgressPrinter implements MapLoadProgress {
+        private int lastPercent = -1;
+
+        @Override
+        public void update(long bytesRead, long totalBytes, int intersections) {
+            int percent = totalBytes > 0 ? (int) (bytesRead * 100 / totalBytes) : 100;
+            if (percent / 10 > lastPercent / 10) {
+                System.err.println("Loading map: " + percent + "% (" + intersections + " intersections)");
+                lastPercent = percent;
+            }
+        }
+    }
+
+    // One "name: value" line, aligned so the report is easy to read and to grep
+    private static void line(PrintStream out, String name, Object value) {
+        out.printf("%-20s%s%n", name + ":", value);
+    }
+
+    // Bytes allocated so far by all live threads, the engine's and the car executor's
+    private static long allocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) return 0;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    // Sum of the peak usage of every heap pool since the JVM started. The pools peak at different
+    // times, so this overstates the real peak heap, it is an upper bound
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -30,8 +30,9 @@ public class Intersection {
 
     private long greenLightDuration = BASE_GREEN_DURATION;
 
-    // Add a random offset to make intersections change at different times
-    private Random random = new Random();
+    // Add a random offset to make intersections change at different times.
+    // The engine seeds the Random, see seedRandom
+    private final Random random = new Random();
     private long randomOffset;
 
     // Add fields to track cars that are already counted
@@ -47,6 +48,15 @@ public class Intersection {
 
     private LightPhase currentPhase;
     private long phaseStartTime;
+    // Simulation sets its own clock when the intersection is added
+    private SimClock clock = new RealTimeClock();
+
+    // Position in the simulation's intersection list, the intersection number in the map tables
+    private int index = -1;
+
+    private static final CarDirection[] DIRECTIONS = CarDirection.values();
+    // Paths through the intersection, indexed by from and to direction, built the first time a car needs one
+    private final TurningPath[] turningPaths = new TurningPath[DIRECTIONS.length * DIRECTIONS.length];
 
     public Intersection(double x, double y) {
         this.position = new Position(x, y);
@@ -88,6 +98,20 @@ public class Intersection {
         countedCars.put(TrafficLight.Direction.SOUTH, new HashSet<>());
         countedCars.put(TrafficLight.Direction.WEST, new HashSet<>());
 
+        chooseFirstGreen();
+    }
+
+    // Seed the intersection's random numbers, for repeatable runs. The timing offset and
+    // the first green are picked again from the new seed
+    void seedRandom(long seed) {
+        random.setSeed(seed);
+        randomOffset = random.nextInt(5000);
+        if (!trafficLights.isEmpty()) {
+            chooseFirstGreen();
+        }
+    }
+
+    private void chooseFirstGreen() {
         // Initialize with random lights being green
         if (random.nextBoolean()) {
             trafficLights.get(0).setState(TrafficLight.LightState.GREEN); // North
@@ -104,11 +128,17 @@ public class Intersection {
         }
 
         // Set phase start time
-        phaseStartTime = System.currentTimeMillis();
+        phaseStartTime = clock.millis();
+    }
+
+    // Switch to another time source, the current phase starts over on the new clock
+    public void setClock(SimClock clock) {
+        this.clock = clock;
+        this.phaseStartTime = clock.millis();
     }
 
     public void updateTrafficLights() {
-        long currentTime = System.currentTimeMillis();
+        long currentTime = clock.millis();
         long timeInCurrentPhase = currentTime - phaseStartTime;
 
         switch (currentPhase) {
@@ -245,12 +275,21 @@ public class Intersection {
     }
     
     // Modified method to take a car reference to avoid duplicate counting
-    public void addWaitingCar(TrafficLight.Direction direction, Car car) {
+    // Synchronized because cars can be stepped on several threads at once
+    public synchronized void addWaitingCar(TrafficLight.Direction direction, Car car) {
         // Only count this car if we haven't counted it before
         if (!countedCars.get(direction).contains(car)) {
             int currentCount = waitingCars.get(direction);
             waitingCars.put(direction, currentCount + 1);
             countedCars.get(direction).add(car);
+            car.countedAt(this);
+        }
+    }
+
+    // A retired car is no longer counted, so it is counted again when the pool brings it back
+    public synchronized void forgetCar(Car car) {
+        for (Set<Car> counted : countedCars.values()) {
+            counted.remove(car);
         }
     }
     
@@ -273,10 +312,32 @@ public class Intersection {
         }
     }
 
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     public Position getPosition() {
         return position;
     }
 
+    // The shared path for a movement. Two cars may race to build the same path,
+    // that only costs a duplicate, the path is immutable so either one is fine to keep
+    public TurningPath getTurningPath(CarDirection from, CarDirection to) {
+        int index = from.ordinal() * DIRECTIONS.length + to.ordinal();
+        TurningPath path = turningPaths[index];
+        if (path == null) {
+            SimConfig config = ConfigLoader.getInstance().getConfig();
+            path = TurningPath.of(position.getX(), position.getY(), from, to,
+                    config.map().intersectionRadius(), config.map().roadWidth(), config.car().turningPathPoints());
+            turningPaths[index] = path;
+        }
+        return path;
+    }
+
     public TrafficLight getTrafficLight(TrafficLight.Direction direction) {
         return lightMap.get(direction);
     }
@@ -0,0 +1,55 @@
+package com.oblig.obj_oblig_2;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Intersection coordinates of a map as primitive doubles, either in arrays on the heap
+// or straight in a memory-mapped compiled map. Nothing is handed out that could change them,
+// so the table can be shared between threads freely.
+public final class IntersectionTable {
+    private final DoubleBuffer x;
+    private final DoubleBuffer y;
+    private final int size;
+
+    public IntersectionTable(double[] x, double[] y) {
+        this(x.clone(), y.clone(), x.length);
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("Got " + x.length + " x and " + y.length + " y coordinates");
+        }
+    }
+
+    // Takes over arrays nobody else holds, only the first size entries are used.
+    // Lets the map loader skip the final copy of arrays it grew while reading
+    IntersectionTable(double[] x, double[] y, int size) {
+        this(DoubleBuffer.wrap(x), DoubleBuffer.wrap(y), size);
+    }
+
+    // Reads through buffers nobody else writes, e.g. views of a mapped file
+    IntersectionTable(DoubleBuffer x, DoubleBuffer y, int size) {
+        this.x = x;
+        this.y = y;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getX(int index) {
+        return x.get(index);
+    }
+
+    public double getY(int index) {
+        return y.get(index);
+    }
+
+    // New Position objects, for code that still wants them
+    public List<Position> toPositions() {
+        List<Position> positions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            positions.add(new Position(x.get(i), y.get(i)));
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,106 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The cars driving one way along one road, ordered by how far along the road they are.
+// Every car in the lane knows its leader (the car directly ahead) and follower,
+// so car-following does not need any spatial search.
+public class Lane {
+    private final Road road;
+    private final CarDirection direction;
+    // Rear-most car first, the car furthest along the road last
+    private final List<Car> cars = new ArrayList<>();
+
+    public Lane(Road road, CarDirection direction) {
+        this.road = road;
+        this.direction = direction;
+    }
+
+    public Road getRoad() {
+        return road;
+    }
+
+    public CarDirection getDirection() {
+        return direction;
+    }
+
+    public synchronized int size() {
+        return cars.size();
+    }
+
+    // The car nearest the start of the lane, null if the lane is empty
+    public synchronized Car rearmost() {
+        return cars.isEmpty() ? null : cars.get(0);
+    }
+
+    // How far along the lane a car is, growing in the driving direction
+    public double progressOf(Car car) {
+        return progressAt(car.getX(), car.getY());
+    }
+
+    public double progressAt(double x, double y) {
+        switch (direction) {
+            case NORTH: return -y;
+            case SOUTH: return y;
+            case EAST: return x;
+            default: return -x; // WEST
+        }
+    }
+
+    // Splice a car in at its place in the queue
+    synchronized void enter(Car car) {
+        double progress = progressOf(car);
+        int low = 0;
+        int high = cars.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (progressOf(cars.get(middle)) < progress) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        cars.add(low, car);
+        car.lane = this;
+        relink(low - 1);
+        relink(low);
+        relink(low + 1);
+    }
+
+    synchronized void leave(Car car) {
+        int index = cars.indexOf(car);
+        if (index < 0) return;
+        cars.remove(index);
+        car.lane = null;
+        car.leader = null;
+        car.follower = null;
+        relink(index - 1);
+        relink(index);
+    }
+
+    // Restore the order after a tick of movement. Cars rarely pass each other,
+    // so this insertion sort is linear in practice
+    synchronized void reorder() {
+        for (int i = 1; i < cars.size(); i++) {
+            Car car = cars.get(i);
+            double progress = progressOf(car);
+            int j = i - 1;
+            while (j >= 0 && progressOf(cars.get(j)) > progress) {
+                cars.set(j + 1, cars.get(j));
+                j--;
+            }
+            cars.set(j + 1, car);
+        }
+        for (int i = 0; i < cars.size(); i++) {
+            relink(i);
+        }
+    }
+
+    private void relink(int index) {
+        if (index < 0 || index >= cars.size()) return;
+        Car car = cars.get(index);
+        car.follower = index > 0 ? cars.get(index - 1) : null;
+        car.leader = index + 1 < cars.size() ? cars.get(index + 1) : null;
+    }
+}
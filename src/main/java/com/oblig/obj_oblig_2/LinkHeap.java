@@ -0,0 +1,70 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.Arrays;
+
+// Binary min-heap of ints (links, or nodes of a search graph) by a double priority.
+// An entry can be in it more than once, the searches skip the stale ones when they come out
+final class LinkHeap {
+    private int[] links;
+    private double[] priorities;
+    private int size;
+
+    LinkHeap(int capacity) {
+        links = new int[capacity];
+        priorities = new double[capacity];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Priority of the entry pop() would return, the heap must not be empty
+    double peekPriority() {
+        return priorities[0];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void push(int link, double priority) {
+        if (size == links.length) {
+            links = Arrays.copyOf(links, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (priorities[parent] <= priority) break;
+            links[i] = links[parent];
+            priorities[i] = priorities[parent];
+            i = parent;
+        }
+        links[i] = link;
+        priorities[i] = priority;
+    }
+
+    // Removes and returns the link with the lowest priority
+    int pop() {
+        int top = links[0];
+        int lastLink = links[--size];
+        double last = priorities[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) child++;
+            if (priorities[child] >= last) break;
+            links[i] = links[child];
+            priorities[i] = priorities[child];
+            i = child;
+        }
+        links[i] = lastLink;
+        priorities[i] = last;
+        return top;
+    }
+}
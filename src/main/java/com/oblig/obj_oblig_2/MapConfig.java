@@ -0,0 +1,6 @@
+package com.oblig.obj_oblig_2;
+
+// hierarchy is only there for compiled maps, routers build it when they need it otherwise
+public record MapConfig(IntersectionTable intersections, RoadTable roads, RoadGraph graph,
+                        ContractionHierarchy hierarchy, int roadWidth, int intersectionRadius) {
+}
@@ -0,0 +1,190 @@
+package com.oblig.obj_oblig_2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+// Writes synthetic grid maps in the same application/map/simulation schema as default-map.json,
+// for stress tests, benchmarks and regression runs.
+// Rows and columns can be spaced irregularly, the intersections still line up so every row
+// and every column is one road. The expected counts are written to a "generator" section,
+// which ConfigLoader ignores.
+//
+// Usage: MapGenerator <out.json> [--rows N] [--columns N] [--spacing PX] [--jitter 0..0.9]
+//                     [--max-cars N] [--spawn-min S] [--spawn-max S] [--seed N]
+public class MapGenerator {
+    // Intersections closer than this would overlap, see intersectionRadius and roadWidth below
+    private static final double MIN_GAP = 100;
+    private static final int ROAD_WIDTH = 40;
+    private static final int INTERSECTION_RADIUS = 30;
+
+    private final int rows;
+    private final int columns;
+    private final double spacing;
+    private double jitter = 0;
+    private int maxCars = 50;
+    private double minSpawnInterval = 0.8;
+    private double maxSpawnInterval = 3.3;
+    private long seed = 1;
+
+    public MapGenerator(int rows, int columns, double spacing) {
+        if (rows < 1 || columns < 1) {
+            throw new IllegalArgumentException("A map needs at least one row and one column");
+        }
+        if (spacing < MIN_GAP) {
+            throw new IllegalArgumentException("Spacing must be at least " + MIN_GAP + ": " + spacing);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.spacing = spacing;
+    }
+
+    // How much each gap may differ from the spacing, as a fraction of it
+    public void setJitter(double jitter) {
+        if (jitter < 0 || jitter > 0.9) {
+            throw new IllegalArgumentException("Jitter must be between 0 and 0.9: " + jitter);
+        }
+        this.jitter = jitter;
+    }
+
+    public void setMaxCars(int maxCars) {
+        this.maxCars = maxCars;
+    }
+
+    public void setSpawnInterval(double minSeconds, double maxSeconds) {
+        if (minSeconds <= 0 || maxSeconds < minSeconds) {
+            throw new IllegalArgumentException("Bad spawn interval: " + minSeconds + " - " + maxSeconds);
+        }
+        this.minSpawnInterval = minSeconds;
+        this.maxSpawnInterval = maxSeconds;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // One horizontal road per row and one vertical road per column
+    public int getExpectedRoadCount() {
+        return rows + columns;
+    }
+
+    public int getExpectedIntersectionCount() {
+        return rows * columns;
+    }
+
+    public ObjectNode generate() {
+        Random random = new Random(seed);
+        double[] xs = positions(columns, random);
+        double[] ys = positions(rows, random);
+        // Same margin after the last road as before the first one
+        int width = (int) Math.ceil(xs[columns - 1] + spacing);
+        int height = (int) Math.ceil(ys[rows - 1] + spacing);
+
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = mapper.createObjectNode();
+
+        ObjectNode application = root.putObject("application");
+        application.put("windowWidth", width);
+        // The window has 100 pixels of controls below the canvas
+        application.put("windowHeight", height + 100);
+        application.put("title", "Traffic Simulation - " + rows + "x" + columns + " grid");
+
+        ObjectNode trafficLight = root.putObject("trafficLight");
+        trafficLight.put("size", 15);
+        trafficLight.put("offset", 25);
+
+        ObjectNode map = root.putObject("map");
+        ArrayNode intersections = map.putArray("intersections");
+        for (double y : ys) {
+            for (double x : xs) {
+                ObjectNode intersection = intersections.addObject();
+                intersection.put("x", x);
+                intersection.put("y", y);
+            }
+        }
+        map.put("roadWidth", ROAD_WIDTH);
+        map.put("intersectionRadius", INTERSECTION_RADIUS);
+
+        ObjectNode simulation = root.putObject("simulation");
+        simulation.put("trafficLightUpdateInterval", 2000);
+        simulation.put("carSpeed", 2.0);
+        simulation.put("carsPerRoad", 2);
+        simulation.put("maxCars", maxCars);
+        simulation.put("minSpawnInterval", minSpawnInterval);
+        simulation.put("maxSpawnInterval", maxSpawnInterval);
+        simulation.put("minGreenLightDuration", 1000);
+        simulation.put("maxGreenLightDuration", 5000);
+        simulation.put("carsPerTimeUnit", 2);
+
+        ObjectNode generator = root.putObject("generator");
+        generator.put("rows", rows);
+        generator.put("columns", columns);
+        generator.put("spacing", spacing);
+        generator.put("jitter", jitter);
+        generator.put("seed", seed);
+        generator.put("expectedRoads", getExpectedRoadCount());
+        generator.put("expectedIntersections", getExpectedIntersectionCount());
+        return root;
+    }
+
+    public void write(File file) throws IOException {
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, generate());
+    }
+
+    // Road coordinates along one axis, the first one a full spacing away from the edge
+    private double[] positions(int count, Random random) {
+        double[] positions = new double[count];
+        double position = 0;
+        for (int i = 0; i < count; i++) {
+            double gap = spacing * (1 + jitter * (random.nextDouble() * 2 - 1));
+            position += Math.max(MIN_GAP, Math.round(gap));
+            positions[i] = position;
+        }
+        return positions;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String out = null;
+        int rows = 10;
+        int columns = 10;
+        double spacing = 150;
+        double jitter = 0;
+        int maxCars = 50;
+        double spawnMin = 0.8;
+        double spawnMax = 3.3;
+        long seed = 1;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rows": rows = Integer.parseInt(args[++i]); break;
+                case "--columns": columns = Integer.parseInt(args[++i]); break;
+                case "--spacing": spacing = Double.parseDouble(args[++i]); break;
+                case "--jitter": jitter = Double.parseDouble(args[++i]); break;
+                case "--max-cars": maxCars = Integer.parseInt(args[++i]); break;
+                case "--spawn-min": spawnMin = Double.parseDouble(args[++i]); break;
+                case "--spawn-max": spawnMax = Double.parseDouble(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default: out = args[i];
+            }
+        }
+        if (out == null) {
+            System.err.println("Usage: MapGenerator <out.json> [--rows N] [--columns N] [--spacing PX] [--jitter 0..0.9]"
+                    + " [--max-cars N] [--spawn-min S] [--spawn-max S] [--seed N]");
+            System.exit(2);
+        }
+
+        MapGenerator generator = new MapGenerator(rows, columns, spacing);
+        generator.setJitter(jitter);
+        generator.setMaxCars(maxCars);
+        generator.setSpawnInterval(spawnMin, spawnMax);
+        generator.setSeed(seed);
+        generator.write(new File(out));
+
+        System.out.println("Wrote " + out);
+        System.out.println("intersections: " + generator.getExpectedIntersectionCount());
+        System.out.println("roads: " + generator.getExpectedRoadCount());
+    }
+}
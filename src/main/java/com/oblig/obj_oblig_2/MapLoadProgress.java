@@ -0,0 +1,9 @@
+package com.oblig.obj_oblig_2;
+
+// Told how far loading a map file has got, every few thousand intersections and once at the end
+@FunctionalInterface
+public interface MapLoadProgress {
+    MapLoadProgress NONE = (bytesRead, totalBytes, intersections) -> { };
+
+    void update(long bytesRead, long totalBytes, int intersections);
+}
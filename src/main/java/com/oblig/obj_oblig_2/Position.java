@@ -1,6 +1,9 @@
 package com.oblig.obj_oblig_2;
 
-public class Position {
+// A point on the map. Mutable through the setters, so a scratch Position can be reused.
+// The static methods work on plain coordinates for code that keeps them in arrays, like the vehicle store.
+// Compare squared distances against squared limits, a square root is only needed for the distance itself.
+public final class Position {
     private double x;
     private double y;
 
@@ -25,8 +28,45 @@ public class Position {
         this.y = y;
     }
 
-    public boolean equals(Position other) {
-        return Math.abs(this.x - other.x) < 0.001 &&
-                Math.abs(this.y - other.y) < 0.001;
+    public double distanceSquaredTo(double otherX, double otherY) {
+        return distanceSquared(x, y, otherX, otherY);
     }
-}
\ No newline at end of file
+
+    public double distanceSquaredTo(Position other) {
+        return distanceSquared(x, y, other.x, other.y);
+    }
+
+    // Closer to the point than the radius, without a square root
+    public boolean isWithin(double otherX, double otherY, double radius) {
+        return distanceSquaredTo(otherX, otherY) < radius * radius;
+    }
+
+    public static double distanceSquared(double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        return dx * dx + dy * dy;
+    }
+
+    public static boolean isWithin(double x1, double y1, double x2, double y2, double radius) {
+        return distanceSquared(x1, y1, x2, y2) < radius * radius;
+    }
+
+    // Exact, so equal positions have equal hash codes
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Position)) return false;
+        Position position = (Position) other;
+        return Double.compare(x, position.x) == 0 && Double.compare(y, position.y) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(x) + Double.hashCode(y);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + x + ", " + y + ")";
+    }
+}
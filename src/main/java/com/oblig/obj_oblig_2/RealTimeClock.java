@@ -0,0 +1,10 @@
+package com.oblig.obj_oblig_2;
+
+// Wall-clock time, how the simulation used to measure everything
+public class RealTimeClock implements SimClock {
+
+    @Override
+    public long millis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -6,12 +6,24 @@ import javafx.scene.paint.Color;
 public class Road {
     private double x1, y1, x2, y2;
     private final int WIDTH = 40;
+    // One lane per driving direction, indexed by CarDirection ordinal (null where the road doesn't go)
+    private final Lane[] lanes = new Lane[CarDirection.values().length];
+    // Position in the simulation's road list, the road number in the map tables
+    private int index = -1;
 
     public Road(double x1, double y1, double x2, double y2) {
         this.x1 = x1;
         this.y1 = y1;
         this.x2 = x2;
         this.y2 = y2;
+
+        if (isHorizontal()) {
+            lanes[CarDirection.EAST.ordinal()] = new Lane(this, CarDirection.EAST);
+            lanes[CarDirection.WEST.ordinal()] = new Lane(this, CarDirection.WEST);
+        } else {
+            lanes[CarDirection.NORTH.ordinal()] = new Lane(this, CarDirection.NORTH);
+            lanes[CarDirection.SOUTH.ordinal()] = new Lane(this, CarDirection.SOUTH);
+        }
     }
 
     public void draw(GraphicsContext gc) {
@@ -52,6 +64,28 @@ public class Road {
         return y2;
     }
 
+    // Lane for cars driving in the given direction, null if the road doesn't run that way
+    public Lane getLane(CarDirection direction) {
+        return lanes[direction.ordinal()];
+    }
+
+    // Put every lane back in order after the cars have moved
+    public void reorderLanes() {
+        for (Lane lane : lanes) {
+            if (lane != null) {
+                lane.reorder();
+            }
+        }
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     public boolean isHorizontal() {
         return y1 == y2;
     }
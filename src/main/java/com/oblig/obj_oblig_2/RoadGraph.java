@@ -0,0 +1,126 @@
+package com.oblig.obj_oblig_2;
+
+import java.nio.IntBuffer;
+
+// Which roads meet at which intersections, worked out once per map.
+// Every intersection sits on one horizontal and one vertical road (see RoadTable for road indices),
+// and every road lists its intersections in driving order west to east or north to south,
+// as compressed rows: the intersections of road r are at roadStart[r] .. roadStart[r + 1].
+// Each road has two lanes, lane 2r for the positive direction (EAST/SOUTH) and 2r + 1 for the other.
+public final class RoadGraph {
+    private final int horizontalRoads;
+    private final IntBuffer horizontalRoadOf;
+    private final IntBuffer verticalRoadOf;
+    private final IntBuffer roadStart;
+    private final IntBuffer roadIntersections;
+
+    // Reads through buffers nobody else writes, e.g. views of a mapped file
+    RoadGraph(int horizontalRoads, IntBuffer horizontalRoadOf, IntBuffer verticalRoadOf,
+              IntBuffer roadStart, IntBuffer roadIntersections) {
+        this.horizontalRoads = horizontalRoads;
+        this.horizontalRoadOf = horizontalRoadOf;
+        this.verticalRoadOf = verticalRoadOf;
+        this.roadStart = roadStart;
+        this.roadIntersections = roadIntersections;
+    }
+
+    // Linear in the number of intersections: the road indices are ranks of the coordinates,
+    // so counting sorts put every road's intersections in order
+    public static RoadGraph of(IntersectionTable intersections, RoadTable roads) {
+        int count = intersections.size();
+        int horizontal = roads.horizontalCount();
+        int total = roads.size();
+
+        int[] horizontalOf = new int[count];
+        int[] verticalOf = new int[count];
+        for (int i = 0; i < count; i++) {
+            horizontalOf[i] = roads.horizontalIndexOf(intersections.getY(i));
+            verticalOf[i] = roads.verticalIndexOf(intersections.getX(i));
+        }
+
+        int[] roadStart = new int[total + 1];
+        for (int i = 0; i < count; i++) {
+            roadStart[horizontalOf[i] + 1]++;
+            roadStart[verticalOf[i] + 1]++;
+        }
+        for (int road = 0; road < total; road++) {
+            roadStart[road + 1] += roadStart[road];
+        }
+
+        int[] cursor = roadStart.clone();
+        int[] roadIntersections = new int[count * 2];
+        // Walking the intersections west to east fills the horizontal roads in driving order,
+        // walking them north to south does the same for the vertical roads
+        for (int i : orderBy(verticalOf, total)) {
+            roadIntersections[cursor[horizontalOf[i]]++] = i;
+        }
+        for (int i : orderBy(horizontalOf, horizontal)) {
+            roadIntersections[cursor[verticalOf[i]]++] = i;
+        }
+
+        return new RoadGraph(horizontal, IntBuffer.wrap(horizontalOf), IntBuffer.wrap(verticalOf),
+                IntBuffer.wrap(roadStart), IntBuffer.wrap(roadIntersections));
+    }
+
+    // Stable counting sort of 0..keys.length-1 by key
+    private static int[] orderBy(int[] keys, int keyLimit) {
+        int[] start = new int[keyLimit + 1];
+        for (int key : keys) {
+            start[key + 1]++;
+        }
+        for (int key = 0; key < keyLimit; key++) {
+            start[key + 1] += start[key];
+        }
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[start[keys[i]]++] = i;
+        }
+        return order;
+    }
+
+    public int intersectionCount() {
+        return horizontalRoadOf.limit();
+    }
+
+    public int roadCount() {
+        return roadStart.limit() - 1;
+    }
+
+    public int horizontalRoadOf(int intersection) {
+        return horizontalRoadOf.get(intersection);
+    }
+
+    public int verticalRoadOf(int intersection) {
+        return verticalRoadOf.get(intersection);
+    }
+
+    // Number of intersections along a road
+    public int intersectionsOnRoad(int road) {
+        return roadStart.get(road + 1) - roadStart.get(road);
+    }
+
+    // The k-th intersection along a road in driving order west to east or north to south
+    public int intersectionOnRoad(int road, int k) {
+        return roadIntersections.get(roadStart.get(road) + k);
+    }
+
+    public boolean isHorizontalRoad(int road) {
+        return road < horizontalRoads;
+    }
+
+    public int laneCount() {
+        return roadCount() * 2;
+    }
+
+    public int roadOfLane(int lane) {
+        return lane >> 1;
+    }
+
+    public CarDirection directionOfLane(int lane) {
+        boolean positive = (lane & 1) == 0;
+        if (isHorizontalRoad(roadOfLane(lane))) {
+            return positive ? CarDirection.EAST : CarDirection.WEST;
+        }
+        return positive ? CarDirection.SOUTH : CarDirection.NORTH;
+    }
+}
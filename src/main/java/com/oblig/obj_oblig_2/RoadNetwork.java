@@ -0,0 +1,291 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.Arrays;
+import java.util.List;
+
+// The roads of a map as a directed graph: intersections are the nodes, and every lane is cut into
+// links at the intersections it crosses. A link knows the intersection it leaves and the one it
+// leads to, and every intersection knows the link leaving it in each direction, so a car on a link
+// finds its next intersection, and where it goes after turning there, without searching.
+//
+// Links of lane l are numbered linkStart[l] .. linkStart[l + 1] in driving order. The first one
+// comes in from the map edge and the last one leaves the map, those ends are NONE.
+// Built once per world from the RoadGraph, the Intersection and Road objects are the ones the
+// Simulation holds, in the same order as the map tables. Tools that only need the links,
+// like the map compiler, build it from the map alone.
+//
+// The only thing that changes afterwards is which links are closed, see Simulation.closeLink.
+// Every close and reopen bumps the closure version, so routes planned before it can tell.
+public final class RoadNetwork {
+    // No intersection or link, e.g. past the map edge
+    public static final int NONE = -1;
+
+    private static final CarDirection[] DIRECTIONS = CarDirection.values();
+
+    private final MapConfig map;
+    private final RoadGraph graph;
+    private final IntersectionTable positions;
+    private final List<Intersection> intersections;
+    private final List<Road> roads;
+
+    private final int[] linkStart;
+    private final int[] linkFrom;
+    private final int[] linkTo;
+    private final int[] linkLane;
+    // Link leaving / entering an intersection in each direction, indexed intersection * 4 + direction ordinal
+    private final int[] outLink;
+    private final int[] inLink;
+
+    // Closed links and the closure version they were last closed or reopened at
+    private final boolean[] closed;
+    private final int[] closureChangedAt;
+    // Written by the thread closing links after the flags, read before them by the cars and routers
+    private volatile int closedLinks;
+    private volatile int closureVersion;
+
+    // Links only, getIntersection and getRoad can't be used
+    public RoadNetwork(MapConfig map) {
+        this(map, null, null);
+    }
+
+    public RoadNetwork(MapConfig map, List<Intersection> intersections, List<Road> roads) {
+        this.map = map;
+        this.graph = map.graph();
+        this.positions = map.intersections();
+        this.intersections = intersections;
+        this.roads = roads;
+        if (intersections != null && intersections.size() != graph.intersectionCount()
+                || roads != null && roads.size() != graph.roadCount()) {
+            throw new IllegalArgumentException("World has " + intersections.size() + " intersections and "
+                    + roads.size() + " roads, the map has " + graph.intersectionCount() + " and " + graph.roadCount());
+        }
+
+        int lanes = graph.laneCount();
+        linkStart = new int[lanes + 1];
+        for (int lane = 0; lane < lanes; lane++) {
+            linkStart[lane + 1] = linkStart[lane] + graph.intersectionsOnRoad(graph.roadOfLane(lane)) + 1;
+        }
+
+        int links = linkStart[lanes];
+        linkFrom = new int[links];
+        linkTo = new int[links];
+        linkLane = new int[links];
+        outLink = new int[graph.intersectionCount() * DIRECTIONS.length];
+        inLink = new int[graph.intersectionCount() * DIRECTIONS.length];
+        Arrays.fill(outLink, NONE);
+        Arrays.fill(inLink, NONE);
+        closed = new boolean[links];
+        closureChangedAt = new int[links];
+
+        for (int lane = 0; lane < lanes; lane++) {
+            int road = graph.roadOfLane(lane);
+            int count = graph.intersectionsOnRoad(road);
+            int direction = graph.directionOfLane(lane).ordinal();
+            for (int k = 0; k <= count; k++) {
+                int link = linkStart[lane] + k;
+                int from = k == 0 ? NONE : intersectionAlong(lane, road, count, k - 1);
+                int to = k == count ? NONE : intersectionAlong(lane, road, count, k);
+                linkFrom[link] = from;
+                linkTo[link] = to;
+                linkLane[link] = lane;
+                if (from != NONE) outLink[from * DIRECTIONS.length + direction] = link;
+                if (to != NONE) inLink[to * DIRECTIONS.length + direction] = link;
+            }
+        }
+    }
+
+    // The k-th intersection a car in this lane reaches
+    private int intersectionAlong(int lane, int road, int count, int k) {
+        boolean positive = (lane & 1) == 0;
+        return graph.intersectionOnRoad(road, positive ? k : count - 1 - k);
+    }
+
+    public MapConfig getMap() {
+        return map;
+    }
+
+    public RoadGraph getGraph() {
+        return graph;
+    }
+
+    public int intersectionCount() {
+        return graph.intersectionCount();
+    }
+
+    public int linkCount() {
+        return linkFrom.length;
+    }
+
+    public int laneCount() {
+        return linkStart.length - 1;
+    }
+
+    // The link coming into a lane from the map edge
+    public int firstLink(int lane) {
+        return linkStart[lane];
+    }
+
+    // The link leaving the map at the end of a lane
+    public int lastLink(int lane) {
+        return linkStart[lane + 1] - 1;
+    }
+
+    // Distance between the two intersections of a link, 0 for the links at the map edge
+    public double linkLength(int link) {
+        int from = linkFrom[link];
+        int to = linkTo[link];
+        if (from == NONE || to == NONE) return 0;
+        return Math.hypot(positions.getX(to) - positions.getX(from), positions.getY(to) - positions.getY(from));
+    }
+
+    public Intersection getIntersection(int intersection) {
+        return intersections.get(intersection);
+    }
+
+    public Road getRoad(int road) {
+        return roads.get(road);
+    }
+
+    public double intersectionX(int intersection) {
+        return positions.getX(intersection);
+    }
+
+    public double intersectionY(int intersection) {
+        return positions.getY(intersection);
+    }
+
+    // Intersection the link starts at, NONE for links coming in from the map edge
+    public int fromIntersection(int link) {
+        return linkFrom[link];
+    }
+
+    // Intersection the link leads to, NONE for links leaving the map
+    public int nextIntersection(int link) {
+        return linkTo[link];
+    }
+
+    public int laneOfLink(int link) {
+        return linkLane[link];
+    }
+
+    public int roadOfLink(int link) {
+        return graph.roadOfLane(linkLane[link]);
+    }
+
+    public CarDirection directionOfLink(int link) {
+        return graph.directionOfLane(linkLane[link]);
+    }
+
+    // The link a car takes leaving an intersection in a direction
+    public int exitLink(int intersection, CarDirection direction) {
+        return outLink[intersection * DIRECTIONS.length + direction.ordinal()];
+    }
+
+    // The link after this one when the car drives on in a direction at the link's end,
+    // NONE at the map edge and for U-turns, which cars never make
+    public int nextLink(int link, CarDirection direction) {
+        int at = linkTo[link];
+        if (at == NONE || isOpposite(directionOfLink(link), direction)) return NONE;
+        return exitLink(at, direction);
+    }
+
+    // The link a car arrives on when it comes into an intersection driving in a direction
+    public int entryLink(int intersection, CarDirection direction) {
+        return inLink[intersection * DIRECTIONS.length + direction.ordinal()];
+    }
+
+    // The road through an intersection that runs the way of the direction
+    public int roadThrough(int intersection, CarDirection direction) {
+        return isHorizontal(direction) ? graph.horizontalRoadOf(intersection) : graph.verticalRoadOf(intersection);
+    }
+
+    // Lane of a road for a direction, NONE if the road does not run that way
+    public int laneOf(int road, CarDirection direction) {
+        if (graph.isHorizontalRoad(road) != isHorizontal(direction)) return NONE;
+        boolean positive = direction == CarDirection.EAST || direction == CarDirection.SOUTH;
+        return positive ? road * 2 : road * 2 + 1;
+    }
+
+    // The link a car at (x, y) driving in a direction along a road is on.
+    // A car right at an intersection has not passed it yet.
+    // Binary search over the road's intersections, for cars placed on a road from nowhere;
+    // cars leaving an intersection use exitLink instead
+    public int linkAt(int road, CarDirection direction, double x, double y) {
+        int lane = laneOf(road, direction);
+        if (lane == NONE) return NONE;
+        boolean horizontal = graph.isHorizontalRoad(road);
+        double position = horizontal ? x : y;
+        int count = graph.intersectionsOnRoad(road);
+
+        // Intersections on the road strictly before the position, west to east or north to south
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int intersection = graph.intersectionOnRoad(road, middle);
+            double at = horizontal ? positions.getX(intersection) : positions.getY(intersection);
+            if (at < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        boolean positive = (lane & 1) == 0;
+        if (positive) {
+            return linkStart[lane] + low;
+        }
+        // Driving the other way, the ones passed are those at or after the position
+        int passed = count - low;
+        if (low < count) {
+            int intersection = graph.intersectionOnRoad(road, low);
+            double at = horizontal ? positions.getX(intersection) : positions.getY(intersection);
+            if (at == position) passed--;
+        }
+        return linkStart[lane] + passed;
+    }
+
+    public boolean isClosed(int link) {
+        return closed[link];
+    }
+
+    public int closedLinkCount() {
+        return closedLinks;
+    }
+
+    public int closureVersion() {
+        return closureVersion;
+    }
+
+    // Closure version the link was last closed or reopened at, 0 if it never was
+    public int closureChangedAt(int link) {
+        return closureChangedAt[link];
+    }
+
+    // Closes a link to new cars, false if it already was
+    public synchronized boolean close(int link) {
+        if (closed[link]) return false;
+        closed[link] = true;
+        closedLinks++;
+        closureChangedAt[link] = closureVersion + 1;
+        closureVersion++;
+        return true;
+    }
+
+    // Opens a closed link again, false if it was open
+    public synchronized boolean reopen(int link) {
+        if (!closed[link]) return false;
+        closed[link] = false;
+        closedLinks--;
+        closureChangedAt[link] = closureVersion + 1;
+        closureVersion++;
+        return true;
+    }
+
+    private static boolean isOpposite(CarDirection a, CarDirection b) {
+        return a != b && isHorizontal(a) == isHorizontal(b);
+    }
+
+    private static boolean isHorizontal(CarDirection direction) {
+        return direction == CarDirection.EAST || direction == CarDirection.WEST;
+    }
+}
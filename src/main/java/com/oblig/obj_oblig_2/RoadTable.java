@@ -0,0 +1,90 @@
+package com.oblig.obj_oblig_2;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+// The straight roads of a grid map: one horizontal road per distinct intersection y,
+// one vertical road per distinct intersection x. Coordinates are sorted and stored as primitives.
+// Road index i < horizontalCount() is horizontal road i, after that the vertical roads follow.
+public final class RoadTable {
+    private final DoubleBuffer horizontalY;
+    private final DoubleBuffer verticalX;
+
+    // Reads through buffers nobody else writes, e.g. views of a mapped file
+    RoadTable(DoubleBuffer horizontalY, DoubleBuffer verticalX) {
+        this.horizontalY = horizontalY;
+        this.verticalX = verticalX;
+    }
+
+    // Derive the roads from the intersections
+    public static RoadTable of(IntersectionTable intersections) {
+        int count = intersections.size();
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = intersections.getX(i);
+            ys[i] = intersections.getY(i);
+        }
+        return new RoadTable(DoubleBuffer.wrap(distinctSorted(ys)), DoubleBuffer.wrap(distinctSorted(xs)));
+    }
+
+    public int horizontalCount() {
+        return horizontalY.limit();
+    }
+
+    public int verticalCount() {
+        return verticalX.limit();
+    }
+
+    public int size() {
+        return horizontalCount() + verticalCount();
+    }
+
+    public double getHorizontalY(int index) {
+        return horizontalY.get(index);
+    }
+
+    public double getVerticalX(int index) {
+        return verticalX.get(index);
+    }
+
+    // Index of the horizontal road at this y, negative if there is none
+    public int horizontalIndexOf(double y) {
+        return search(horizontalY, y);
+    }
+
+    // Road index (after the horizontal roads) of the vertical road at this x, negative if there is none
+    public int verticalIndexOf(double x) {
+        int index = search(verticalX, x);
+        return index < 0 ? index : horizontalCount() + index;
+    }
+
+    private static int search(DoubleBuffer sorted, double value) {
+        int low = 0;
+        int high = sorted.limit() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            double found = sorted.get(middle);
+            if (found < value) {
+                low = middle + 1;
+            } else if (found > value) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    // Sorts in place and returns the distinct values
+    private static double[] distinctSorted(double[] values) {
+        Arrays.sort(values);
+        int distinct = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (distinct == 0 || values[i] != values[distinct - 1]) {
+                values[distinct++] = values[i];
+            }
+        }
+        return distinct == values.length ? values : Arrays.copyOf(values, distinct);
+    }
+}
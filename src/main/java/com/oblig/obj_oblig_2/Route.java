@@ -0,0 +1,41 @@
+package com.oblig.obj_oblig_2;
+
+// The links of the road network a car drives from its origin link to its destination link,
+// both included. Immutable, so one route can be handed to every car making the same trip.
+public final class Route {
+    private final int[] links;
+    private final double length;
+
+    Route(int[] links, double length) {
+        this.links = links;
+        this.length = length;
+    }
+
+    public int size() {
+        return links.length;
+    }
+
+    public int link(int index) {
+        return links[index];
+    }
+
+    public int origin() {
+        return links[0];
+    }
+
+    public int destination() {
+        return links[links.length - 1];
+    }
+
+    // Driving distance between the intersections on the route
+    public double length() {
+        return length;
+    }
+
+    public boolean contains(int link) {
+        for (int l : links) {
+            if (l == link) return true;
+        }
+        return false;
+    }
+}
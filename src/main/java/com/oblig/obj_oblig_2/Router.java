@@ -0,0 +1,21 @@
+package com.oblig.obj_oblig_2;
+
+// Finds the route between two links of a road network.
+// Cars never make U-turns, so a route only continues straight or turns left or right at each intersection.
+public interface Router {
+
+    // The shortest route from the origin link to the destination link, null if there is none
+    Route route(int originLink, int destinationLink);
+
+    // Look up a router by the short name used on the command line
+    static Router forName(String name, RoadNetwork network) {
+        switch (name) {
+            case "astar":
+                return new AStarRouter(network);
+            case "ch":
+                return ContractionHierarchyRouter.of(network);
+            default:
+                throw new IllegalArgumentException("Unknown router: " + name);
+        }
+    }
+}
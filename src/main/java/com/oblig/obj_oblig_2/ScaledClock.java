@@ -0,0 +1,23 @@
+package com.oblig.obj_oblig_2;
+
+// Wall-clock time running a fixed number of times faster, e.g. 50x
+public class ScaledClock implements SimClock {
+    private final double factor;
+    private final long startNanos = System.nanoTime();
+
+    public ScaledClock(double factor) {
+        if (factor <= 0) {
+            throw new IllegalArgumentException("Clock factor must be positive: " + factor);
+        }
+        this.factor = factor;
+    }
+
+    @Override
+    public long millis() {
+        return (long) ((System.nanoTime() - startNanos) * factor / 1_000_000.0);
+    }
+
+    public double getFactor() {
+        return factor;
+    }
+}
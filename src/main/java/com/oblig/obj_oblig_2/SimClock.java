@@ -0,0 +1,28 @@
+package com.oblig.obj_oblig_2;
+
+// Time source for everything in the simulation that waits: light phases, cooldowns, stuck detection.
+// The engine advances it once per tick, clocks that follow the wall clock ignore that.
+public interface SimClock {
+
+    // Current simulation time in milliseconds, only differences between readings mean anything
+    long millis();
+
+    // Called by the engine at the start of every tick
+    default void advance(double seconds) {
+    }
+
+    // Look up a clock by the name used on the command line: "real", "stepped" or "scaled:<factor>"
+    static SimClock forName(String name) {
+        if (name.startsWith("scaled:")) {
+            return new ScaledClock(Double.parseDouble(name.substring("scaled:".length())));
+        }
+        switch (name) {
+            case "real":
+                return new RealTimeClock();
+            case "stepped":
+                return new SteppedClock();
+            default:
+                throw new IllegalArgumentException("Unknown clock: " + name);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.oblig.obj_oblig_2;
+
+// The whole map file, parsed once into immutable records with primitive fields.
+// Sections mirror the JSON: application, car, trafficLight, map and simulation.
+public record SimConfig(ApplicationConfig application,
+                        CarConfig car,
+                        TrafficLightConfig trafficLight,
+                        MapConfig map,
+                        SimulationConfig simulation) {
+}
@@ -2,18 +2,48 @@ package com.oblig.obj_oblig_2;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 //Controls the simulation
 public class Simulation {
     private List<Intersection> intersections;
     private List<Road> roads;
-    private List<Car> cars;
+    // Car state lives in the vehicle store, cars are listed in slot order
+    private final VehicleStore vehicles;
+    // Neighbour lookup over the vehicle store, rebuilt by the engine every tick
+    private final SpatialHash spatialHash;
+    // Cars that left, reused for the next ones coming in
+    private final VehiclePool vehiclePool;
+    // Front/back snapshots the renderer and neighbour queries read instead of the live store
+    private final SnapshotBuffer snapshots = new SnapshotBuffer();
     private boolean isRunning;
+    private CarExecutor carExecutor = new SingleThreadCarExecutor();
+    // Lane changes and waiting registrations collected while cars are stepped, see update
+    private final TickIntents tickIntents = new TickIntents();
+    private boolean twoPhaseTick = true;
+    // Time source for lights and car timers, the engine advances it every tick
+    private final SimClock clock;
+    // Links between the intersections, null for a world that was not built from a map
+    private RoadNetwork roadNetwork;
+    // Routes for the trips of new cars, null to let cars pick their turns at random.
+    // Unless one is set, a cached A* router is made the first time a route is needed
+    private volatile Router router;
+    private volatile boolean routerChosen;
+    // Cached routes dropped by link closures, and car routes planned again around a closed link
+    private long routesInvalidated;
+    private final AtomicLong routesRepaired = new AtomicLong();
 
     public Simulation() {
+        this(new SteppedClock());
+    }
+
+    public Simulation(SimClock clock) {
+        this.clock = clock;
         this.intersections = new ArrayList<>();
         this.roads = new ArrayList<>();
-        this.cars = new ArrayList<>();
+        this.vehicles = new VehicleStore(64);
+        this.spatialHash = new SpatialHash(ConfigLoader.getInstance().getMinCarDistance());
+        this.vehiclePool = new VehiclePool(ConfigLoader.getInstance().getMaxCars());
         this.isRunning = false;
     }
 
@@ -25,28 +55,150 @@ public class Simulation {
         isRunning = false;
     }
 
-    public void update() {
+    public void update(double dt) {
         // Update each intersection independently
         for (Intersection intersection : intersections) {
             intersection.updateTrafficLights();
         }
 
-        // Update cars
-        for (Car car : cars) {
-            car.move();
+        if (!twoPhaseTick) {
+            // Cars apply their shared effects as they go, only safe with a single thread
+            carExecutor.step(vehicles.cars(), dt);
+            return;
+        }
+
+        // Phase one: every car reads the published snapshot and writes only its own slot,
+        // so the executor can step them in any order on any number of threads
+        tickIntents.open(vehicles.size());
+        try {
+            carExecutor.step(vehicles.cars(), dt);
+        } finally {
+            // Phase two: apply the shared effects sequentially in slot order
+            tickIntents.commit(vehicles);
         }
     }
 
+    public TickIntents getTickIntents() {
+        return tickIntents;
+    }
+
+    public boolean isTwoPhaseTick() {
+        return twoPhaseTick;
+    }
+
+    public void setTwoPhaseTick(boolean twoPhaseTick) {
+        this.twoPhaseTick = twoPhaseTick;
+    }
+
+    public void setCarExecutor(CarExecutor carExecutor) {
+        this.carExecutor = carExecutor;
+    }
+
+    public CarExecutor getCarExecutor() {
+        return carExecutor;
+    }
+
+    public SimClock getClock() {
+        return clock;
+    }
+
     public void addIntersection(Intersection intersection) {
+        intersection.setClock(clock);
+        intersection.setIndex(intersections.size());
         intersections.add(intersection);
     }
 
     public void addRoad(Road road) {
+        road.setIndex(roads.size());
         roads.add(road);
     }
 
+    public RoadNetwork getRoadNetwork() {
+        return roadNetwork;
+    }
+
+    public void setRoadNetwork(RoadNetwork roadNetwork) {
+        this.roadNetwork = roadNetwork;
+    }
+
+    public Router getRouter() {
+        if (!routerChosen && roadNetwork != null) {
+            chooseDefaultRouter();
+        }
+        return router;
+    }
+
+    // Cars on several executor threads can ask for the first route at once
+    private synchronized void chooseDefaultRouter() {
+        if (routerChosen) return;
+        router = new CachingRouter(new AStarRouter(roadNetwork), SimulationEngine.ROUTE_CACHE_SIZE, roadNetwork);
+        routerChosen = true;
+    }
+
+    public synchronized void setRouter(Router router) {
+        this.router = router;
+        routerChosen = true;
+    }
+
+    // Closes a link of the road network, e.g. for an incident. Cars already on it drive on,
+    // no car turns into it while another way is open. Only the cached routes over the link are
+    // dropped; cars on such a route plan again when they reach their next intersection.
+    // Returns how many cached routes were dropped
+    public int closeLink(int link) {
+        if (roadNetwork == null || !roadNetwork.close(link)) return 0;
+        int touched = router instanceof CachingRouter ? ((CachingRouter) router).invalidateRoutesThrough(link) : 0;
+        routesInvalidated += touched;
+        return touched;
+    }
+
+    // Opens a closed link again. Drops the cached routes searched while it was closed,
+    // they may go around it. Cars keep the route they have. Returns how many routes were dropped
+    public int reopenLink(int link) {
+        if (roadNetwork == null) return 0;
+        int closedAt = roadNetwork.closureChangedAt(link);
+        if (!roadNetwork.reopen(link)) return 0;
+        int touched = router instanceof CachingRouter ? ((CachingRouter) router).invalidateRoutesSince(closedAt) : 0;
+        routesInvalidated += touched;
+        return touched;
+    }
+
+    public long getRoutesInvalidated() {
+        return routesInvalidated;
+    }
+
+    public long getRoutesRepaired() {
+        return routesRepaired.get();
+    }
+
+    // A car planned its trip again around a closed link, cars can do this from any worker thread
+    void routeRepaired() {
+        routesRepaired.incrementAndGet();
+    }
+
     public void addCar(Car car) {
-        cars.add(car);
+        vehicles.transfer(car);
+    }
+
+    // Swap-removes the car from the vehicle store, so the last car takes its slot
+    public void removeCar(Car car) {
+        car.leaveLane();
+        vehicles.remove(car);
+    }
+
+    // Removes a car for good without waiting for anything: it is out of the vehicle store, its lane
+    // and the intersections' waiting counts at once, and parked for the pool to bring back as a new car.
+    // Reclaiming it only clears a few references, so it happens right here on the engine thread
+    public void retireCar(Car car) {
+        if (car.store != vehicles) return;
+        car.forgetWaiting();
+        if (!vehiclePool.release(car)) {
+            vehicles.remove(car);
+        }
+        car.reclaim();
+    }
+
+    public VehiclePool getVehiclePool() {
+        return vehiclePool;
     }
 
     public List<Intersection> getIntersections() {
@@ -57,31 +209,26 @@ public class Simulation {
         return roads;
     }
 
+    // Read-only, use addCar/removeCar to change it
     public List<Car> getCars() {
-        return cars;
+        return vehicles.cars();
     }
 
-    private void createRoadsFromIntersections(double canvasWidth, double canvasHeight) {
-        for (Intersection intersection : this.intersections) {
-            Position pos = intersection.getPosition();
+    public VehicleStore getVehicles() {
+        return vehicles;
+    }
 
-            // Create independent roads for each intersection
-            Road horizontalRoad = new Road(0, pos.getY(), canvasWidth, pos.getY());
-            Road verticalRoad = new Road(pos.getX(), 0, pos.getX(), canvasHeight);
+    public SpatialHash getSpatialHash() {
+        return spatialHash;
+    }
 
-            this.addRoad(horizontalRoad);
-            this.addRoad(verticalRoad);
-        }
+    // Copy the current car state into the back snapshot and publish it
+    public void publishSnapshot(long epoch) {
+        snapshots.publish(vehicles, epoch);
     }
-    
-    public void initialize() {
-        // Initialize intersections, roads, and cars here
-        // Example:
-        Intersection intersection = new Intersection(400, 300);
-        intersection.setupTrafficLights();
-        this.addIntersection(intersection);
 
-        // Create roads from intersections
-        this.createRoadsFromIntersections(1200, 800); // Replace with actual canvas dimensions
+    // Latest published snapshot, safe to read from any thread
+    public WorldSnapshot getSnapshot() {
+        return snapshots.getFront();
     }
 }
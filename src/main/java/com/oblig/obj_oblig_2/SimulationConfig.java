@@ -0,0 +1,12 @@
+package com.oblig.obj_oblig_2;
+
+public record SimulationConfig(int trafficLightUpdateInterval,
+                               double carSpeed,
+                               int carsPerRoad,
+                               int maxCars,
+                               double minSpawnInterval,
+                               double maxSpawnInterval,
+                               long minGreenLightDuration,
+                               long maxGreenLightDuration,
+                               int carsPerTimeUnit) {
+}
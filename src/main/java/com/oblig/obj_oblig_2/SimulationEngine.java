@@ -0,0 +1,396 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.List;
+import java.util.Random;
+
+// Headless engine that steps the simulation in fixed time steps.
+// It does not know about JavaFX - the controller only reads the world from it and draws it.
+public class SimulationEngine {
+    // Same cadence the old per-car threads used (Thread.sleep(100)), so car speeds look the same
+    public static final double DEFAULT_TICK_SECONDS = 0.1;
+
+    // Never try to catch up more than this in one call, otherwise a long pause makes the engine spiral
+    private static final double MAX_ADVANCE_SECONDS = 0.5;
+
+    // Routes kept for trips between the same two links
+    public static final int ROUTE_CACHE_SIZE = 4096;
+
+    private final double tickSeconds;
+    private final double worldWidth;
+    private final double worldHeight;
+    private final Simulation simulation;
+    private final Random random = new Random();
+    private final CollisionResolver collisionResolver;
+
+    // The map's spawn interval used to bring in 1-2 cars every so many seconds,
+    // the default demand keeps that average rate as Poisson arrivals
+    private static final double CARS_PER_SPAWN = 1.5;
+    private static final int MAX_CARS_PER_ROAD = 20;
+    // A map with no spawn interval would ask for endless arrivals
+    private static final double MIN_MEAN_SPAWN_INTERVAL = 0.1;
+    private double minSpawnInterval; // from the map's simulation section
+    private double maxSpawnInterval;
+    private int maxCars; // Maximum number of cars allowed
+    private boolean autoSpawningEnabled = true;
+    // Arrivals of new cars, null until the first tick makes the default one
+    private DemandModel demand;
+    private long arrivals;
+    private long arrivalsBlocked;
+
+    private double accumulatedSeconds = 0;
+    private long tickCount = 0;
+    private long completedCars = 0;
+
+    public SimulationEngine(double worldWidth, double worldHeight) {
+        this(worldWidth, worldHeight, DEFAULT_TICK_SECONDS);
+    }
+
+    public SimulationEngine(double worldWidth, double worldHeight, double tickSeconds) {
+        this(worldWidth, worldHeight, tickSeconds, new SingleThreadCarExecutor());
+    }
+
+    public SimulationEngine(double worldWidth, double worldHeight, double tickSeconds, CarExecutor carExecutor) {
+        this(worldWidth, worldHeight, tickSeconds, carExecutor, new SteppedClock());
+    }
+
+    public SimulationEngine(double worldWidth, double worldHeight, double tickSeconds, CarExecutor carExecutor, SimClock clock) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.tickSeconds = tickSeconds;
+        this.simulation = new Simulation(clock);
+        this.simulation.setCarExecutor(carExecutor);
+        this.maxCars = ConfigLoader.getInstance().getMaxCars();
+        this.minSpawnInterval = ConfigLoader.getInstance().getMinSpawnInterval();
+        this.maxSpawnInterval = Math.max(minSpawnInterval, ConfigLoader.getInstance().getMaxSpawnInterval());
+        this.collisionResolver = new CollisionResolver(ConfigLoader.getInstance().getCarSize());
+        buildWorld();
+    }
+
+    // Seed the engine's randomness, every intersection and every spawned car gets its own seed from it
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+        seedIntersections();
+    }
+
+    // Light timing offsets and first greens follow the engine's Random
+    private void seedIntersections() {
+        for (Intersection intersection : simulation.getIntersections()) {
+            intersection.seedRandom(random.nextLong());
+        }
+    }
+
+    // Advance by a chunk of real time, running as many fixed ticks as fit into it
+    public void advance(double elapsedSeconds) {
+        accumulatedSeconds += Math.min(elapsedSeconds, MAX_ADVANCE_SECONDS);
+        while (accumulatedSeconds >= tickSeconds) {
+            tick();
+            accumulatedSeconds -= tickSeconds;
+        }
+    }
+
+    // Run a number of ticks back to back, as fast as possible
+    public void run(long ticks) {
+        for (long i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    // One fixed step of the whole world
+    public void tick() {
+        // Simulation time moves by exactly one tick
+        simulation.getClock().advance(tickSeconds);
+
+        // Remove out-of-bounds cars
+        removeOutOfBoundsCars();
+
+        // Only spawn cars automatically if enabled
+        if (autoSpawningEnabled) {
+            spawnScheduledCars();
+        }
+
+        // Freeze this tick's world for the renderer and the neighbour queries
+        publishSnapshot();
+
+        // Update cars with information about nearby vehicles
+        updateVehicleAwareness();
+
+        // Traffic lights and car motion
+        simulation.update(tickSeconds);
+
+        // Resolve collisions
+        collisionResolver.resolve(simulation.getVehicles());
+
+        // Keep every lane queue ordered so leaders stay correct
+        for (Road road : simulation.getRoads()) {
+            road.reorderLanes();
+        }
+
+        tickCount++;
+    }
+
+    // Stop the car executor's threads, the engine can't be ticked afterwards
+    public void shutdown() {
+        simulation.getCarExecutor().shutdown();
+    }
+
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    public double getTickSeconds() {
+        return tickSeconds;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    // Cars that drove off the map since the engine was created
+    public long getCompletedCars() {
+        return completedCars;
+    }
+
+    public double getWorldWidth() {
+        return worldWidth;
+    }
+
+    public double getWorldHeight() {
+        return worldHeight;
+    }
+
+    // Cars per second the map's spawn interval works out to. Only the map decides it, not the
+    // tick length: several arrivals due in one tick all come in on that tick
+    public double getMapArrivalRate() {
+        double meanInterval = (minSpawnInterval + maxSpawnInterval) / 2;
+        return CARS_PER_SPAWN / Math.max(meanInterval, MIN_MEAN_SPAWN_INTERVAL);
+    }
+
+    public DemandModel getDemand() {
+        return demand;
+    }
+
+    // Use another demand model, its times count from the engine's first tick
+    public void setDemand(DemandModel demand) {
+        this.demand = demand;
+    }
+
+    // Cars the demand model had arrive, and those turned away at an occupied entry or a full map
+    public long getArrivals() {
+        return arrivals;
+    }
+
+    public long getArrivalsBlocked() {
+        return arrivalsBlocked;
+    }
+
+    public boolean isAutoSpawningEnabled() {
+        return autoSpawningEnabled;
+    }
+
+    public void setAutoSpawningEnabled(boolean autoSpawningEnabled) {
+        this.autoSpawningEnabled = autoSpawningEnabled;
+    }
+
+    private void buildWorld() {
+        ConfigLoader config = ConfigLoader.getInstance();
+
+        // Create intersections from config
+        IntersectionTable intersections = config.getConfig().map().intersections();
+        for (int i = 0; i < intersections.size(); i++) {
+            simulation.addIntersection(new Intersection(intersections.getX(i), intersections.getY(i)));
+        }
+
+        // Create roads based on intersection positions
+        createRoads(config.getConfig().map().roads());
+        RoadNetwork network = new RoadNetwork(config.getConfig().map(),
+                simulation.getIntersections(), simulation.getRoads());
+        // The simulation makes the default router when the first trip is planned, unless one is set before
+        simulation.setRoadNetwork(network);
+
+        // Setup traffic lights
+        for (Intersection intersection : simulation.getIntersections()) {
+            intersection.setupTrafficLights();
+        }
+        seedIntersections();
+    }
+
+    // The loader already worked out one road per distinct intersection x and y
+    private void createRoads(RoadTable roads) {
+        // Create horizontal roads for each unique Y coordinate
+        for (int i = 0; i < roads.horizontalCount(); i++) {
+            double y = roads.getHorizontalY(i);
+            simulation.addRoad(new Road(0, y, worldWidth, y));
+        }
+
+        // Create vertical roads for each unique X coordinate
+        for (int i = 0; i < roads.verticalCount(); i++) {
+            double x = roads.getVerticalX(i);
+            simulation.addRoad(new Road(x, 0, x, worldHeight));
+        }
+    }
+
+    // Put a car straight into its lane on a road, a distance from the road's start.
+    // Skips the spawn point checks, used to fill big maps for benchmarks
+    Car placeCar(Road road, CarDirection direction, double distance, double speed) {
+        Car car = simulation.getVehiclePool().acquire(0, 0, speed, direction);
+        int laneOffset = car.store.lane[car.slot];
+        if (road.isHorizontal()) {
+            car.store.x[car.slot] = road.getX1() + distance;
+            car.store.y[car.slot] = road.getY1() + laneOffset;
+        } else {
+            car.store.x[car.slot] = road.getX1() + laneOffset;
+            car.store.y[car.slot] = road.getY1() + distance;
+        }
+        addCar(car, road);
+        return car;
+    }
+
+    private void addCar(Car car, Road road) {
+        car.seedRandom(random.nextLong());
+        car.setSimulation(simulation);
+        car.setCurrentRoad(road);
+        car.setIntersections(simulation.getIntersections());
+        simulation.addCar(car);
+    }
+
+    // Add 1-2 cars right away at random entries that are free, e.g. for the add car button
+    public void spawnNewCars() {
+        RoadNetwork network = simulation.getRoadNetwork();
+        if (network == null || network.laneCount() == 0) return;
+
+        // Add just 1-2 cars at a time to avoid overcrowding
+        int newCarsToAdd = Math.min(2, maxCars - simulation.getCars().size());
+        for (int attempt = 0; newCarsToAdd > 0 && attempt < 8; attempt++) {
+            int entry = random.nextInt(network.laneCount());
+            if (spawnAt(network, entry, random.nextInt(network.laneCount()))) {
+                newCarsToAdd--;
+            }
+        }
+    }
+
+    // Bring in the cars the demand model has arriving by now. An arrival at an entry that is
+    // still occupied, or while the map is full, is turned away
+    private void spawnScheduledCars() {
+        RoadNetwork network = simulation.getRoadNetwork();
+        if (network == null || network.laneCount() == 0) return;
+        if (demand == null) {
+            // Made on first use, so setSeed decides the arrivals too
+            demand = DemandModel.poisson(network, getMapArrivalRate(), random.nextLong());
+        }
+        double now = tickCount * tickSeconds;
+        while (demand.hasArrival(now)) {
+            arrivals++;
+            if (simulation.getCars().size() >= maxCars
+                    || !spawnAt(network, demand.entryLane(), demand.exitLane())) {
+                arrivalsBlocked++;
+            }
+            demand.advance();
+        }
+    }
+
+    // Put a new car at the start of an entry lane, headed for the end of the exit lane.
+    // False if the entry is occupied or the road already has enough cars.
+    // Both checks look at the lane queues only, not at the other cars
+    private boolean spawnAt(RoadNetwork network, int entryLane, int exitLane) {
+        RoadGraph graph = network.getGraph();
+        Road road = network.getRoad(graph.roadOfLane(entryLane));
+        CarDirection direction = graph.directionOfLane(entryLane);
+        Lane lane = road.getLane(direction);
+        Lane otherLane = road.getLane(opposite(direction));
+        if (lane.size() + otherLane.size() >= MAX_CARS_PER_ROAD) return false;
+
+        double startX = entryX(road, direction);
+        double startY = entryY(road, direction);
+        // The entry slot is taken while the rear-most car of the lane is still close to it
+        Car rearmost = lane.rearmost();
+        double entryProgress = lane.progressAt(startX, startY);
+        if (rearmost != null && lane.progressOf(rearmost) - entryProgress < ConfigLoader.getInstance().getMinCarDistance() * 3) {
+            return false;
+        }
+
+        // Randomize car speed (85% to 115% of base speed)
+        double speedVariation = 0.85 + (random.nextDouble() * 0.30);
+        double carSpeed = ConfigLoader.getInstance().getCurrentCarSpeed() * speedVariation;
+
+        // Take a car from the pool and add it, the engine moves it on the next tick
+        Car car = simulation.getVehiclePool().acquire(startX, startY, carSpeed, direction);
+        addCar(car, road);
+        planTrip(car, network.lastLink(exitLane));
+        return true;
+    }
+
+    // Where a car driving in a direction comes onto a road, well off the map
+    private double entryX(Road road, CarDirection direction) {
+        // Center of the lane
+        int properLaneOffset = ConfigLoader.getInstance().getRoadWidth() / 2 / 2;
+        switch (direction) {
+            case EAST: return -150;
+            case WEST: return worldWidth + 150;
+            // South-bound on the LEFT half of a vertical road, north-bound on the RIGHT half
+            case SOUTH: return road.getX1() - properLaneOffset;
+            default: return road.getX1() + properLaneOffset;
+        }
+    }
+
+    private double entryY(Road road, CarDirection direction) {
+        int properLaneOffset = ConfigLoader.getInstance().getRoadWidth() / 2 / 2;
+        switch (direction) {
+            // East-bound on the BOTTOM half of a horizontal road, west-bound on the TOP half
+            case EAST: return road.getY1() + properLaneOffset;
+            case WEST: return road.getY1() - properLaneOffset;
+            case SOUTH: return -150;
+            default: return worldHeight + 150;
+        }
+    }
+
+    private static CarDirection opposite(CarDirection direction) {
+        switch (direction) {
+            case EAST: return CarDirection.WEST;
+            case WEST: return CarDirection.EAST;
+            case SOUTH: return CarDirection.NORTH;
+            default: return CarDirection.SOUTH;
+        }
+    }
+
+    // Send a new car to its exit of the map along a route, if the simulation has a router
+    private void planTrip(Car car, int destination) {
+        Router router = simulation.getRouter();
+        if (router == null || car.getLink() == RoadNetwork.NONE) return;
+        car.setRoute(router.route(car.getLink(), destination));
+    }
+
+    public void removeLastCar() {
+        List<Car> cars = simulation.getCars();
+        if (!cars.isEmpty()) {
+            simulation.retireCar(cars.get(cars.size() - 1));
+        }
+    }
+
+    // Publish the current car state, stamped with the tick number.
+    // Also called after cars are added or removed between ticks so the renderer sees them right away
+    public void publishSnapshot() {
+        simulation.publishSnapshot(tickCount);
+    }
+
+    // Rebuild the spatial hash the cars use to find their neighbours
+    private void updateVehicleAwareness() {
+        simulation.getSpatialHash().rebuild(simulation.getSnapshot());
+    }
+
+    private void removeOutOfBoundsCars() {
+        VehicleStore vehicles = simulation.getVehicles();
+        int margin = 200; // Increase margin even more to be very forgiving
+
+        // Walk backwards, so swap-removal only moves cars we have already checked
+        for (int slot = vehicles.size() - 1; slot >= 0; slot--) {
+            double x = vehicles.x[slot];
+            double y = vehicles.y[slot];
+            // Check if car is far outside the world bounds
+            if (x < -margin || x > worldWidth + margin ||
+                y < -margin || y > worldHeight + margin) {
+                simulation.retireCar(vehicles.carAt(slot));
+                completedCars++;
+            }
+        }
+    }
+}
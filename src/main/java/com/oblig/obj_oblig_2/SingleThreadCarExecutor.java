@@ -0,0 +1,14 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.List;
+
+// Steps all cars one after another on the calling thread
+public class SingleThreadCarExecutor implements CarExecutor {
+
+    @Override
+    public void step(List<Car> cars, double dt) {
+        for (Car car : cars) {
+            car.step(dt);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.oblig.obj_oblig_2;
+
+// Front/back pair of world snapshots.
+// The engine fills the back one and swaps, readers always get the front one without locking.
+// A snapshot handed out stays untouched until the next swap after that, so a reader has a full tick.
+public class SnapshotBuffer {
+    private final WorldSnapshot[] buffers = {new WorldSnapshot(), new WorldSnapshot()};
+    private int back = 0;
+    private volatile WorldSnapshot front = buffers[1];
+
+    // Capture the store into the back buffer and make it the front one
+    void publish(VehicleStore store, long epoch) {
+        WorldSnapshot snapshot = buffers[back];
+        snapshot.capture(store, epoch);
+        front = snapshot;
+        back ^= 1;
+    }
+
+    public WorldSnapshot getFront() {
+        return front;
+    }
+}
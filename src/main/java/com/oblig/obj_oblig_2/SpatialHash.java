@@ -0,0 +1,86 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.Arrays;
+
+// Uniform grid over the published world snapshot, hashed into a fixed table and rebuilt once per tick.
+// The cells are about one safe distance wide, so a car only has to look at its own cell
+// and the one ahead of it instead of every other car.
+public class SpatialHash {
+    private final double cellSize;
+
+    private int tableMask;
+    private int[] bucketStart;  // entries of bucket b are entries[bucketStart[b]..bucketStart[b + 1])
+    private int[] bucketCursor; // scratch for the rebuild
+    private int[] entries;      // vehicle slots, grouped by bucket
+    private int[] bucketOfSlot;
+    private int count;
+
+    public SpatialHash(double cellSize) {
+        this.cellSize = cellSize;
+        resize(64);
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    // Counting sort of all vehicle slots into their buckets, O(N) and no allocation once sized
+    public void rebuild(WorldSnapshot snapshot) {
+        count = snapshot.size();
+        if (count * 2 > bucketStart.length - 1 || count > entries.length) {
+            resize(count);
+        }
+
+        Arrays.fill(bucketStart, 0);
+        for (int slot = 0; slot < count; slot++) {
+            int bucket = bucket(cell(snapshot.getX(slot)), cell(snapshot.getY(slot)));
+            bucketOfSlot[slot] = bucket;
+            bucketStart[bucket + 1]++;
+        }
+        for (int b = 0; b <= tableMask; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        System.arraycopy(bucketStart, 0, bucketCursor, 0, bucketCursor.length);
+        for (int slot = 0; slot < count; slot++) {
+            entries[bucketCursor[bucketOfSlot[slot]]++] = slot;
+        }
+    }
+
+    // Cell coordinate of a world coordinate
+    public int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    // Bucket of a cell. Different cells can share a bucket, so callers still check the real distance
+    public int bucket(int cellX, int cellY) {
+        return ((cellX * 73856093) ^ (cellY * 19349663)) & tableMask;
+    }
+
+    public int bucketStart(int bucket) {
+        return bucketStart[bucket];
+    }
+
+    public int bucketEnd(int bucket) {
+        return bucketStart[bucket + 1];
+    }
+
+    // Vehicle slot stored at an index between bucketStart and bucketEnd
+    public int entry(int index) {
+        return entries[index];
+    }
+
+    // Number of vehicles in the grid since the last rebuild
+    public int size() {
+        return count;
+    }
+
+    private void resize(int vehicles) {
+        int tableSize = Integer.highestOneBit(Math.max(64, vehicles * 2) - 1) << 1;
+        tableMask = tableSize - 1;
+        bucketStart = new int[tableSize + 1];
+        bucketCursor = new int[tableSize + 1];
+        int capacity = Math.max(64, vehicles);
+        entries = new int[capacity];
+        bucketOfSlot = new int[capacity];
+    }
+}
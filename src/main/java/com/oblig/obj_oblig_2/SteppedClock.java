@@ -0,0 +1,17 @@
+package com.oblig.obj_oblig_2;
+
+// Time that only moves when the engine ticks, so timers depend on tick count and not on how fast
+// the machine is. A headless run can get through an hour of traffic as fast as it can tick.
+public class SteppedClock implements SimClock {
+    private double elapsedMillis;
+
+    @Override
+    public long millis() {
+        return (long) elapsedMillis;
+    }
+
+    @Override
+    public void advance(double seconds) {
+        elapsedMillis += seconds * 1000.0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.Arrays;
+
+// Shared side effects the cars ask for while they are being stepped.
+// During the compute phase a car only writes its own slot in the vehicle store and in here,
+// and commit applies the lane changes and waiting registrations one slot at a time in slot order.
+// That keeps the result the same no matter how many threads stepped the cars.
+public class TickIntents {
+    private Lane[] lanes = new Lane[0];
+    private boolean[] laneChanged = new boolean[0];
+    private Intersection[] waitingAt = new Intersection[0];
+    private TrafficLight.Direction[] waitingDirection = new TrafficLight.Direction[0];
+    private int size;
+    private boolean open;
+
+    // Start collecting for a tick over this many slots
+    void open(int slots) {
+        if (lanes.length < slots) {
+            int capacity = Math.max(slots, lanes.length * 2);
+            lanes = Arrays.copyOf(lanes, capacity);
+            laneChanged = Arrays.copyOf(laneChanged, capacity);
+            waitingAt = Arrays.copyOf(waitingAt, capacity);
+            waitingDirection = Arrays.copyOf(waitingDirection, capacity);
+        }
+        size = slots;
+        open = true;
+    }
+
+    // True between open and commit, cars defer their shared effects while it is
+    boolean isOpen() {
+        return open;
+    }
+
+    // The last lane asked for wins, a car can change its mind several times in one step
+    void changeLane(int slot, Lane lane) {
+        lanes[slot] = lane;
+        laneChanged[slot] = true;
+    }
+
+    void waitAt(int slot, Intersection intersection, TrafficLight.Direction direction) {
+        waitingAt[slot] = intersection;
+        waitingDirection[slot] = direction;
+    }
+
+    // Apply everything that was collected, in slot order, then clear the slots for the next tick
+    void commit(VehicleStore store) {
+        open = false;
+        for (int slot = 0; slot < size; slot++) {
+            Car car = store.carAt(slot);
+            if (laneChanged[slot]) {
+                car.moveToLane(lanes[slot]);
+                lanes[slot] = null;
+                laneChanged[slot] = false;
+            }
+            if (waitingAt[slot] != null) {
+                waitingAt[slot].addWaitingCar(waitingDirection[slot], car);
+                waitingAt[slot] = null;
+                waitingDirection[slot] = null;
+            }
+        }
+    }
+}
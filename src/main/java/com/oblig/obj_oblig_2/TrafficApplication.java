@@ -6,6 +6,7 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 public class TrafficApplication extends Application {
 
@@ -32,6 +33,11 @@ public class TrafficApplication extends Application {
     }
 
     public static void main(String[] args) {
+        // --headless runs the map without a window, see HeadlessRunner for the options
+        if (args.length > 0 && args[0].equals("--headless")) {
+            HeadlessRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         if (args.length > 0) {
             try {
                 ConfigLoader.initialize(args[0]);
@@ -0,0 +1,4 @@
+package com.oblig.obj_oblig_2;
+
+public record TrafficLightConfig(int size, int offset, int detectionRadius) {
+}
@@ -0,0 +1,147 @@
+package com.oblig.obj_oblig_2;
+
+// A path through an intersection for one movement, from the entry point of one lane to the exit
+// point of another. The points and the distance along the path to each point are worked out once,
+// so a car only keeps the path and how far along it has driven.
+// Immutable, one instance is shared by every car making the same movement at the same intersection.
+public final class TurningPath {
+    // Turns are laid out on the lane entry and exit points this far out from the center
+    private static final double EDGE_FACTOR = 0.9;
+    // How far the Bezier control points sit from the entry and exit points
+    private static final double CONTROL_FACTOR = 0.6;
+
+    private final double[] xs;
+    private final double[] ys;
+    // Distance along the path to each point, starts at 0
+    private final double[] distances;
+
+    private TurningPath(double[] xs, double[] ys) {
+        this.xs = xs;
+        this.ys = ys;
+        this.distances = new double[xs.length];
+        for (int i = 1; i < xs.length; i++) {
+            distances[i] = distances[i - 1] + Math.hypot(xs[i] - xs[i - 1], ys[i] - ys[i - 1]);
+        }
+    }
+
+    // Straight through: the entry point, then the exit point on the far side
+    // Turning: a cubic Bezier from the entry point to the exit point of the new direction
+    public static TurningPath of(double centerX, double centerY, CarDirection from, CarDirection to,
+                                 int intersectionRadius, int roadWidth, int points) {
+        double edge = intersectionRadius * EDGE_FACTOR;
+        double entryX = centerX + entryOffsetX(from, edge, roadWidth);
+        double entryY = centerY + entryOffsetY(from, edge, roadWidth);
+        // The far side of the intersection seen from the new direction, in its lane
+        double exitX = centerX + entryOffsetX(to, edge, roadWidth) + stepX(to) * 2 * edge;
+        double exitY = centerY + entryOffsetY(to, edge, roadWidth) + stepY(to) * 2 * edge;
+
+        if (from == to) {
+            return new TurningPath(new double[] {entryX, exitX}, new double[] {entryY, exitY});
+        }
+
+        // Leave along the old direction, arrive along the new one
+        double control = intersectionRadius * CONTROL_FACTOR;
+        double control1X = entryX + stepX(from) * control;
+        double control1Y = entryY + stepY(from) * control;
+        double control2X = exitX - stepX(to) * control;
+        double control2Y = exitY - stepY(to) * control;
+
+        double[] xs = new double[points + 1];
+        double[] ys = new double[points + 1];
+        xs[0] = entryX;
+        ys[0] = entryY;
+        for (int i = 1; i <= points; i++) {
+            double t = i / (double) points;
+            xs[i] = bezierPoint(t, entryX, control1X, control2X, exitX);
+            ys[i] = bezierPoint(t, entryY, control1Y, control2Y, exitY);
+        }
+        return new TurningPath(xs, ys);
+    }
+
+    public double length() {
+        return distances[distances.length - 1];
+    }
+
+    // How far along the first segment a point is, for a car that is not exactly at the start
+    public double distanceFrom(double x, double y) {
+        double length = distances[1];
+        if (length == 0) return 0;
+        double along = ((x - xs[0]) * (xs[1] - xs[0]) + (y - ys[0]) * (ys[1] - ys[0])) / length;
+        return Math.max(0, Math.min(length, along));
+    }
+
+    // Position at a distance along the path, clamped to its ends
+    public double xAt(double distance) {
+        int i = segmentAt(distance);
+        return xs[i] + (xs[i + 1] - xs[i]) * fraction(i, distance);
+    }
+
+    public double yAt(double distance) {
+        int i = segmentAt(distance);
+        return ys[i] + (ys[i + 1] - ys[i]) * fraction(i, distance);
+    }
+
+    // Index of the point that starts the segment holding this distance
+    private int segmentAt(double distance) {
+        int low = 0;
+        int high = distances.length - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (distances[mid] <= distance) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private double fraction(int segment, double distance) {
+        double length = distances[segment + 1] - distances[segment];
+        if (length == 0) return 1;
+        return Math.max(0, Math.min(1, (distance - distances[segment]) / length));
+    }
+
+    // Entry point relative to the center, on the near side and in the lane of this direction
+    private static double entryOffsetX(CarDirection dir, double edge, int roadWidth) {
+        switch (dir) {
+            case EAST: return -edge;
+            case WEST: return edge;
+            default: return laneOffset(dir, roadWidth);
+        }
+    }
+
+    private static double entryOffsetY(CarDirection dir, double edge, int roadWidth) {
+        switch (dir) {
+            case NORTH: return edge;
+            case SOUTH: return -edge;
+            default: return laneOffset(dir, roadWidth);
+        }
+    }
+
+    // Right-side driving, same offsets as Car.calculateLaneOffset
+    static int laneOffset(CarDirection dir, int roadWidth) {
+        int laneWidth = roadWidth / 2;
+        switch (dir) {
+            case NORTH: return laneWidth / 2;
+            case SOUTH: return -laneWidth / 2;
+            case EAST: return laneWidth / 2;
+            case WEST: return -laneWidth / 2;
+            default: return 0;
+        }
+    }
+
+    // Unit step in the direction of travel, y grows downwards
+    private static int stepX(CarDirection dir) {
+        return dir == CarDirection.EAST ? 1 : dir == CarDirection.WEST ? -1 : 0;
+    }
+
+    private static int stepY(CarDirection dir) {
+        return dir == CarDirection.SOUTH ? 1 : dir == CarDirection.NORTH ? -1 : 0;
+    }
+
+    private static double bezierPoint(double t, double p0, double p1, double p2, double p3) {
+        double mt = 1 - t;
+        return mt * mt * mt * p0 + 3 * mt * mt * t * p1 + 3 * mt * t * t * p2 + t * t * t * p3;
+    }
+}
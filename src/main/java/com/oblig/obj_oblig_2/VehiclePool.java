@@ -0,0 +1,52 @@
+package com.oblig.obj_oblig_2;
+
+// Cars that left the map, kept to come back as the next cars arriving, so steady traffic
+// doesn't allocate a Car, its store slot, Random and buffers for every new car.
+// The idle cars are parked in a vehicle store of their own, taking one out and putting it
+// into the simulation only copies its slot. Used by the engine thread only.
+// No more cars are parked than can be on the map at once, the rest are dropped.
+public class VehiclePool {
+    private final VehicleStore parked = new VehicleStore(64);
+    private final int capacity;
+    private long created;
+    private long reused;
+
+    public VehiclePool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    // A car at (x, y) with no road or trip yet, reused if one is parked.
+    // A new car is made right in the parked store, so add it to the simulation before the next acquire
+    Car acquire(double x, double y, double speed, CarDirection direction) {
+        if (parked.size() == 0) {
+            created++;
+            return new Car(parked, x, y, speed, direction);
+        }
+        reused++;
+        Car car = parked.carAt(parked.size() - 1);
+        car.reset(x, y, speed, direction);
+        return car;
+    }
+
+    // Park a retired car, it leaves its lane and the simulation's vehicle store.
+    // False if the pool is full, the car is left where it is for the caller to drop
+    boolean release(Car car) {
+        car.leaveLane();
+        if (parked.size() >= capacity) return false;
+        parked.transfer(car);
+        return true;
+    }
+
+    // Cars parked right now
+    public int size() {
+        return parked.size();
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getReused() {
+        return reused;
+    }
+}
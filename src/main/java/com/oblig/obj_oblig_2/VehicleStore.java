@@ -0,0 +1,187 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+// Structure-of-arrays storage for the primitive state of the cars.
+// Every car owns one slot, and the hot loops walk the arrays instead of chasing Car objects.
+// Removing a car moves the last car into the freed slot, so slots 0..size-1 are always in use.
+public class VehicleStore {
+    // Bits in the flags array
+    static final int FLAG_IN_INTERSECTION = 1;
+    static final int FLAG_IN_COOLDOWN = 1 << 1;
+    static final int FLAG_PASSED_LIGHT = 1 << 2;
+    static final int FLAG_TURNING = 1 << 3;
+    static final int FLAG_FOLLOWING_PATH = 1 << 4;
+
+    double[] x;
+    double[] y;
+    double[] speed;
+    double[] originalSpeed;
+    int[] direction; // CarDirection ordinal
+    int[] lane;      // lane offset from the road center line
+    int[] flags;
+    private Car[] cars;
+    private int size;
+    // Bumped whenever cars are added or removed, so caches of slot numbers know when to rebuild
+    private long version;
+    // Where removed cars go, made on the first removal
+    private VehicleStore detached;
+
+    private final List<Car> carList = new AbstractList<>() {
+        @Override
+        public Car get(int index) {
+            if (index >= size) throw new IndexOutOfBoundsException(index);
+            return cars[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    public VehicleStore(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        x = new double[capacity];
+        y = new double[capacity];
+        speed = new double[capacity];
+        originalSpeed = new double[capacity];
+        direction = new int[capacity];
+        lane = new int[capacity];
+        flags = new int[capacity];
+        cars = new Car[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Read-only view of the cars, in slot order
+    public List<Car> cars() {
+        return carList;
+    }
+
+    public Car carAt(int slot) {
+        return cars[slot];
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Move a car by an offset, used when pushing overlapping cars apart
+    void push(int slot, double dx, double dy) {
+        x[slot] += dx;
+        y[slot] += dy;
+    }
+
+    // Drop a car's speed to a fraction of the speed it normally drives at
+    void slowToFractionOfOriginal(int slot, double fraction) {
+        speed[slot] = originalSpeed[slot] * fraction;
+    }
+
+    // Give a car a new, zeroed slot in this store
+    int add(Car car) {
+        if (size == cars.length) {
+            grow();
+        }
+        int slot = size++;
+        version++;
+        cars[slot] = car;
+        x[slot] = 0;
+        y[slot] = 0;
+        speed[slot] = 0;
+        originalSpeed[slot] = 0;
+        direction[slot] = 0;
+        lane[slot] = 0;
+        flags[slot] = 0;
+        car.store = this;
+        car.slot = slot;
+        return slot;
+    }
+
+    // Move a car, with all of its state, from whatever store it is in now into this one
+    void transfer(Car car) {
+        VehicleStore from = car.store;
+        int fromSlot = car.slot;
+        if (from == this) return;
+
+        int slot = add(car);
+        x[slot] = from.x[fromSlot];
+        y[slot] = from.y[fromSlot];
+        speed[slot] = from.speed[fromSlot];
+        originalSpeed[slot] = from.originalSpeed[fromSlot];
+        direction[slot] = from.direction[fromSlot];
+        lane[slot] = from.lane[fromSlot];
+        flags[slot] = from.flags[fromSlot];
+
+        // The car now points here, so only clear the old slot. A detached car whose
+        // slot was taken over by a later one has nothing left to clear
+        if (from.cars[fromSlot] == car) {
+            from.release(fromSlot);
+        }
+    }
+
+    // Remove a car by moving the last car into its slot.
+    // The removed car goes to the one-slot detached store, so it stays usable without allocating
+    // a store for every removal. Its state there only lasts until the next car is removed
+    void remove(Car car) {
+        if (car.store != this) return;
+        if (detached == null) {
+            detached = new VehicleStore(1);
+        }
+        detached.detach(car);
+    }
+
+    // Take over slot 0 for a removed car, from whichever car was detached here before
+    private void detach(Car car) {
+        VehicleStore from = car.store;
+        int fromSlot = car.slot;
+        if (size == 0) {
+            size = 1;
+        }
+        version++;
+        cars[0] = car;
+        x[0] = from.x[fromSlot];
+        y[0] = from.y[fromSlot];
+        speed[0] = from.speed[fromSlot];
+        originalSpeed[0] = from.originalSpeed[fromSlot];
+        direction[0] = from.direction[fromSlot];
+        lane[0] = from.lane[fromSlot];
+        flags[0] = from.flags[fromSlot];
+        car.store = this;
+        car.slot = 0;
+        from.release(fromSlot);
+    }
+
+    private void release(int slot) {
+        int last = --size;
+        version++;
+        if (slot != last) {
+            x[slot] = x[last];
+            y[slot] = y[last];
+            speed[slot] = speed[last];
+            originalSpeed[slot] = originalSpeed[last];
+            direction[slot] = direction[last];
+            lane[slot] = lane[last];
+            flags[slot] = flags[last];
+            cars[slot] = cars[last];
+            cars[slot].slot = slot;
+        }
+        cars[last] = null;
+    }
+
+    private void grow() {
+        int capacity = cars.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        originalSpeed = Arrays.copyOf(originalSpeed, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        lane = Arrays.copyOf(lane, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        cars = Arrays.copyOf(cars, capacity);
+    }
+}
@@ -0,0 +1,57 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Steps every car in its own task, one virtual thread per car.
+// Virtual threads only exist from Java 21, so on older runtimes we fall back to a cached thread pool.
+public class VirtualThreadCarExecutor implements CarExecutor {
+    private final ExecutorService executor;
+
+    public VirtualThreadCarExecutor() {
+        this.executor = createExecutor();
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            // Looked up reflectively because we still compile for Java 17
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads not available, using a cached thread pool instead");
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "car-step");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public void step(List<Car> cars, double dt) {
+        List<Future<?>> futures = new ArrayList<>(cars.size());
+        for (Car car : cars) {
+            futures.add(executor.submit(() -> car.step(dt)));
+        }
+
+        // Wait for the whole tick to finish before returning to the engine
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Car step failed", e.getCause());
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,67 @@
+package com.oblig.obj_oblig_2;
+
+import java.util.Arrays;
+import javafx.scene.paint.Color;
+
+// Frozen copy of the car state at the start of a tick, stamped with the tick number (epoch).
+// Readers never see it change: the engine only writes into the snapshot that is not published.
+public class WorldSnapshot {
+    private static final CarDirection[] DIRECTIONS = CarDirection.values();
+
+    private long epoch = -1;
+    private int size;
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private int[] direction = new int[0];
+    private Color[] color = new Color[0];
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getX(int slot) {
+        return x[slot];
+    }
+
+    public double getY(int slot) {
+        return y[slot];
+    }
+
+    public CarDirection getDirection(int slot) {
+        return DIRECTIONS[direction[slot]];
+    }
+
+    int getDirectionOrdinal(int slot) {
+        return direction[slot];
+    }
+
+    public Color getColor(int slot) {
+        return color[slot];
+    }
+
+    // Copy the store into this snapshot, only called on the back buffer
+    void capture(VehicleStore store, long epoch) {
+        int count = store.size();
+        if (x.length < count) {
+            int capacity = Math.max(count, x.length * 2);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            direction = Arrays.copyOf(direction, capacity);
+            color = Arrays.copyOf(color, capacity);
+        }
+        System.arraycopy(store.x, 0, x, 0, count);
+        System.arraycopy(store.y, 0, y, 0, count);
+        System.arraycopy(store.direction, 0, direction, 0, count);
+        for (int slot = 0; slot < count; slot++) {
+            color[slot] = store.carAt(slot).getColor();
+        }
+        // Don't keep removed cars' colors alive
+        Arrays.fill(color, count, Math.max(count, size), null);
+        this.size = count;
+        this.epoch = epoch;
+    }
+}
@@ -2,6 +2,8 @@ module com.oblig.obj_oblig_2 {
     requires javafx.controls;
     requires javafx.fxml;
     requires com.fasterxml.jackson.databind;
+    requires java.management;
+    requires jdk.management;
 
 
     opens com.oblig.obj_oblig_2 to javafx.fxml;
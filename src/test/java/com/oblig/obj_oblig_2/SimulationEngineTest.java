@@ -0,0 +1,59 @@
+package com.oblig.obj_oblig_2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class SimulationEngineTest {
+    private static final String MAP = "src/main/resources/com/oblig/obj_oblig_2/default-map.json";
+    private static final long TICKS = 3000;
+
+    private static PrintStream out;
+
+    @BeforeAll
+    static void loadMap() throws IOException {
+        // The cars log every decision
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ConfigLoader.initialize(MAP);
+    }
+
+    @AfterAll
+    static void restoreOut() {
+        System.setOut(out);
+    }
+
+    @Test
+    void sameSeedGivesSameWorld() {
+        SimulationEngine first = run(7);
+        SimulationEngine second = run(7);
+
+        assertEquals(first.getArrivals(), second.getArrivals());
+        assertEquals(first.getArrivalsBlocked(), second.getArrivalsBlocked());
+        assertEquals(first.getCompletedCars(), second.getCompletedCars());
+
+        VehicleStore a = first.getSimulation().getVehicles();
+        VehicleStore b = second.getSimulation().getVehicles();
+        assertEquals(a.size(), b.size());
+        for (int slot = 0; slot < a.size(); slot++) {
+            assertEquals(a.x[slot], b.x[slot], "x of slot " + slot);
+            assertEquals(a.y[slot], b.y[slot], "y of slot " + slot);
+            assertEquals(a.speed[slot], b.speed[slot], "speed of slot " + slot);
+            assertEquals(a.direction[slot], b.direction[slot], "direction of slot " + slot);
+        }
+    }
+
+    private static SimulationEngine run(long seed) {
+        SimulationEngine engine = new SimulationEngine(1000, 800);
+        engine.setSeed(seed);
+        engine.run(TICKS);
+        engine.shutdown();
+        return engine;
+    }
+}